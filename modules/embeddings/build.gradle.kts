@@ -9,4 +9,5 @@ dependencies {
     api("dev.langchain4j:langchain4j-core:${property("langchain4jVersion")}")
     api("dev.langchain4j:langchain4j-ollama:${property("ollamaVersion")}")
     implementation("org.springframework:spring-context:6.1.13")
+    implementation("jakarta.annotation:jakarta.annotation-api:2.1.1")
 }
\ No newline at end of file
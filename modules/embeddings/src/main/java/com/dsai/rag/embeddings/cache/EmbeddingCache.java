@@ -0,0 +1,164 @@
+package com.dsai.rag.embeddings.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * (모델명, content hash) 로 주소화되는 임베딩 캐시
+ * 힙의 LRU 캐시를 먼저 보고, 없으면 모델별 메모리 매핑 파일에서 찾습니다.
+ */
+@Slf4j
+@Component
+public class EmbeddingCache {
+
+    private final boolean enabled;
+    private final Path directory;
+    private final Map<String, float[]> memory;
+    private final Map<String, MappedEmbeddingStore> stores = new ConcurrentHashMap<>();
+    private final Set<String> unavailableModels = ConcurrentHashMap.newKeySet();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public EmbeddingCache(
+            @Value("${embedding.cache.enabled:true}") boolean enabled,
+            @Value("${embedding.cache.path:./data/embedding-cache}") String path,
+            @Value("${embedding.cache.memory-entries:10000}") int memoryEntries) {
+        this.enabled = enabled;
+        this.directory = Path.of(path);
+        this.memory = new LinkedHashMap<>(Math.min(memoryEntries, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, float[]> eldest) {
+                return size() > memoryEntries;
+            }
+        };
+
+        log.info("Initialized embedding cache (enabled={}, path={}, memoryEntries={})", enabled, path, memoryEntries);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public float[] get(String modelName, String contentHash) {
+        if (!enabled || contentHash == null) {
+            return null;
+        }
+        String key = modelName + ":" + contentHash;
+        synchronized (memory) {
+            float[] cached = memory.get(key);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached;
+            }
+        }
+
+        MappedEmbeddingStore store = store(modelName);
+        float[] vector = store != null ? store.get(contentHash) : null;
+        if (vector == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        synchronized (memory) {
+            memory.put(key, vector);
+        }
+        return vector;
+    }
+
+    public void put(String modelName, String contentHash, float[] vector) {
+        if (!enabled || contentHash == null || vector == null) {
+            return;
+        }
+        synchronized (memory) {
+            memory.put(modelName + ":" + contentHash, vector);
+        }
+        MappedEmbeddingStore store = store(modelName);
+        if (store == null) {
+            return;
+        }
+        try {
+            store.put(contentHash, vector);
+        } catch (Exception e) {
+            log.warn("Failed to persist embedding for {} in cache: {}", contentHash, e.getMessage());
+        }
+    }
+
+    /**
+     * 캐시 통계 조회 (diskEntries 는 지금까지 열린 모델 파일 기준)
+     */
+    public CacheStats getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long memoryEntries;
+        synchronized (memory) {
+            memoryEntries = memory.size();
+        }
+        return CacheStats.builder()
+                .enabled(enabled)
+                .memoryEntries(memoryEntries)
+                .diskEntries(stores.values().stream().mapToLong(MappedEmbeddingStore::size).sum())
+                .hitCount(hitCount)
+                .missCount(missCount)
+                .hitRate(hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount))
+                .build();
+    }
+
+    @PreDestroy
+    public void close() {
+        stores.forEach((model, store) -> {
+            try {
+                store.close();
+            } catch (IOException e) {
+                log.warn("Failed to close embedding cache for model {}: {}", model, e.getMessage());
+            }
+        });
+        stores.clear();
+    }
+
+    private MappedEmbeddingStore store(String modelName) {
+        if (unavailableModels.contains(modelName)) {
+            return null;
+        }
+        return stores.computeIfAbsent(modelName, model -> {
+            Path file = directory.resolve(model.replaceAll("[^A-Za-z0-9._-]", "_") + ".emb");
+            try {
+                Files.createDirectories(directory);
+                MappedEmbeddingStore store = new MappedEmbeddingStore(file);
+                if (store.skippedRecords() > 0) {
+                    log.warn("Embedding cache {} had {} incomplete records, ignoring them", file, store.skippedRecords());
+                }
+                log.info("Opened embedding cache {} with {} entries", file, store.size());
+                return store;
+            } catch (IOException e) {
+                log.warn("Embedding cache {} unavailable, continuing without disk cache: {}", file, e.getMessage());
+                unavailableModels.add(model);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * 캐시 통계 DTO
+     */
+    @lombok.Builder
+    @lombok.Data
+    public static class CacheStats {
+        private boolean enabled;
+        private long memoryEntries;
+        private long diskEntries;
+        private long hitCount;
+        private long missCount;
+        private double hitRate;
+    }
+}
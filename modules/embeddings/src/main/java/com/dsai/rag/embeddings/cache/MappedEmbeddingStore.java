@@ -0,0 +1,202 @@
+package com.dsai.rag.embeddings.cache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * 한 임베딩 모델의 벡터를 고정 길이 레코드로 저장하는 메모리 매핑 파일
+ * 레코드 = 16바이트 키(content hash 의 MD5) + dims * 4바이트 벡터 + 4바이트 CRC32.
+ * 파일은 고정 크기 세그먼트 단위로 매핑되어 추가만 되며, 키 인덱스만 힙에 둡니다.
+ * 레코드를 다 쓴 뒤에 헤더의 개수를 올리고, 열 때 체크섬이 맞지 않는 레코드(비정상 종료로 덜 쓰였거나
+ * 0 으로 남은 레코드)는 인덱스에 넣지 않습니다.
+ */
+class MappedEmbeddingStore implements AutoCloseable {
+
+    private static final int MAGIC = 0x454D4243; // "EMBC"
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 16;
+    private static final int KEY_SIZE = 16;
+    private static final int CHECKSUM_SIZE = 4;
+    private static final long SEGMENT_BYTES = 64L * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private final Map<Key, Integer> slots = new HashMap<>();
+
+    private int dims;
+    private int count;
+    private int recordBytes;
+    private int recordsPerSegment;
+    private int skippedRecords;
+
+    MappedEmbeddingStore(Path file) throws IOException {
+        this.channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean fresh = channel.size() < HEADER_SIZE;
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+
+        if (!fresh && header.getInt(0) != MAGIC) {
+            channel.close();
+            throw new IOException("Not an embedding cache file: " + file);
+        }
+        if (!fresh && header.getInt(4) != VERSION) {
+            // 이전 형식의 캐시는 체크섬이 없으므로 버리고 새로 시작
+            channel.truncate(HEADER_SIZE);
+            fresh = true;
+        }
+        if (fresh) {
+            header.putInt(0, MAGIC);
+            header.putInt(4, VERSION);
+            header.putInt(8, 0);
+            header.putInt(12, 0);
+            return;
+        }
+
+        int storedDims = header.getInt(8);
+        if (storedDims > 0) {
+            initLayout(storedDims);
+            long available = segments.size() * (long) recordsPerSegment;
+            int storedCount = (int) Math.min(header.getInt(12), available);
+            for (int slot = 0; slot < storedCount; slot++) {
+                ByteBuffer record = record(slot);
+                if (!isValid(record)) {
+                    skippedRecords++;
+                    continue;
+                }
+                byte[] key = new byte[KEY_SIZE];
+                record.get(0, key);
+                slots.put(new Key(key), slot);
+            }
+            count = storedCount;
+        }
+    }
+
+    synchronized float[] get(String contentHash) {
+        Integer slot = slots.get(Key.of(contentHash));
+        if (slot == null) {
+            return null;
+        }
+        ByteBuffer record = record(slot);
+        record.position(record.position() + KEY_SIZE);
+        float[] vector = new float[dims];
+        record.asFloatBuffer().get(vector);
+        return vector;
+    }
+
+    synchronized void put(String contentHash, float[] vector) throws IOException {
+        if (dims == 0) {
+            initLayout(vector.length);
+            header.putInt(8, dims);
+        } else if (vector.length != dims) {
+            throw new IllegalArgumentException(
+                    "Vector dimension mismatch: expected " + dims + " but was " + vector.length);
+        }
+
+        Key key = Key.of(contentHash);
+        Integer existing = slots.get(key);
+        int slot = existing != null ? existing : count;
+        if (slot / recordsPerSegment >= segments.size()) {
+            long offset = HEADER_SIZE + (long) segments.size() * recordsPerSegment * recordBytes;
+            segments.add(channel.map(FileChannel.MapMode.READ_WRITE, offset, (long) recordsPerSegment * recordBytes));
+        }
+
+        // 레코드(키, 벡터, 체크섬)를 먼저 쓰고 개수는 그 다음에 올린다
+        ByteBuffer record = record(slot);
+        record.put(key.bytes);
+        record.asFloatBuffer().put(vector);
+        record.putInt(KEY_SIZE + dims * Float.BYTES, checksum(record));
+
+        if (existing == null) {
+            slots.put(key, slot);
+            count++;
+            header.putInt(12, count);
+        }
+    }
+
+    synchronized int size() {
+        return slots.size();
+    }
+
+    /**
+     * 열 때 체크섬이 맞지 않아 버린 레코드 수
+     */
+    synchronized int skippedRecords() {
+        return skippedRecords;
+    }
+
+    synchronized void flush() {
+        header.force();
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        channel.close();
+    }
+
+    private void initLayout(int dimension) throws IOException {
+        this.dims = dimension;
+        this.recordBytes = KEY_SIZE + dimension * Float.BYTES + CHECKSUM_SIZE;
+        this.recordsPerSegment = (int) Math.max(1, SEGMENT_BYTES / recordBytes);
+
+        long dataBytes = Math.max(0, channel.size() - HEADER_SIZE);
+        long segmentBytes = (long) recordsPerSegment * recordBytes;
+        long segmentCount = (dataBytes + segmentBytes - 1) / segmentBytes;
+        for (long i = 0; i < segmentCount; i++) {
+            segments.add(channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + i * segmentBytes, segmentBytes));
+        }
+    }
+
+    private boolean isValid(ByteBuffer record) {
+        return record.getInt(KEY_SIZE + dims * Float.BYTES) == checksum(record);
+    }
+
+    private int checksum(ByteBuffer record) {
+        CRC32 crc = new CRC32();
+        crc.update(record.duplicate().position(0).limit(KEY_SIZE + dims * Float.BYTES));
+        return (int) crc.getValue();
+    }
+
+    private ByteBuffer record(int slot) {
+        ByteBuffer segment = segments.get(slot / recordsPerSegment).duplicate();
+        segment.position((slot % recordsPerSegment) * recordBytes);
+        return segment.slice().limit(recordBytes);
+    }
+
+    private record Key(byte[] bytes) {
+        static Key of(String contentHash) {
+            try {
+                return new Key(MessageDigest.getInstance("MD5").digest(contentHash.getBytes(StandardCharsets.UTF_8)));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other && Arrays.equals(bytes, other.bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(bytes);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.dsai.rag.embeddings.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+
+/**
+ * 텍스트를 batchSize 단위로 나누어 최대 maxInFlight 개의 배치를 가상 스레드에서 동시에 임베딩합니다.
+ * 진행 중인 배치 수는 (인스턴스를 공유하는 모든 호출자에 걸쳐) 세마포어로 제한되어 제출하는 쪽이 대기하며(backpressure),
+ * 실패한 배치만 지수 백오프로 재시도하고, 결과는 입력 순서대로 반환합니다.
+ */
+@Slf4j
+public class BatchingEmbedder implements AutoCloseable {
+
+    private final Function<List<String>, List<float[]>> embedder;
+    private final int batchSize;
+    private final int maxInFlight;
+    private final int maxRetries;
+    private final long retryBackoffMs;
+    private final Semaphore permits;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public BatchingEmbedder(Function<List<String>, List<float[]>> embedder,
+                            int batchSize, int maxInFlight, int maxRetries, long retryBackoffMs) {
+        this.embedder = embedder;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.maxRetries = Math.max(0, maxRetries);
+        this.retryBackoffMs = retryBackoffMs;
+        this.permits = new Semaphore(this.maxInFlight);
+    }
+
+    public List<float[]> embedAll(List<String> texts) {
+        return embedAll(texts, embedded -> { });
+    }
+
+    /**
+     * @param progress 배치가 끝날 때마다 지금까지 임베딩된 텍스트 수로 호출됩니다
+     */
+    public List<float[]> embedAll(List<String> texts, IntConsumer progress) {
+        if (texts.isEmpty()) {
+            return new ArrayList<>();
+        }
+        AtomicInteger embedded = new AtomicInteger();
+        List<Future<List<float[]>>> futures = new ArrayList<>();
+        try {
+            for (int start = 0; start < texts.size(); start += batchSize) {
+                List<String> batch = texts.subList(start, Math.min(start + batchSize, texts.size()));
+                int batchIndex = futures.size();
+                permits.acquire();
+                futures.add(executor.submit(() -> {
+                    try {
+                        List<float[]> result = embedWithRetry(batch, batchIndex);
+                        progress.accept(embedded.addAndGet(result.size()));
+                        return result;
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+
+            List<float[]> results = new ArrayList<>(texts.size());
+            for (Future<List<float[]>> future : futures) {
+                results.addAll(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(f -> f.cancel(true));
+            throw new RuntimeException("Batch embedding interrupted", e);
+        } catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            throw new RuntimeException("Batch embedding generation failed", e.getCause());
+        }
+    }
+
+    private List<float[]> embedWithRetry(List<String> batch, int batchIndex) throws InterruptedException {
+        int attempt = 0;
+        while (true) {
+            try {
+                List<float[]> result = embedder.apply(batch);
+                if (result.size() != batch.size()) {
+                    throw new IllegalStateException("Expected " + batch.size() + " embeddings but got " + result.size());
+                }
+                return result;
+            } catch (RuntimeException e) {
+                if (attempt >= maxRetries) {
+                    log.error("Embedding batch {} failed after {} attempts", batchIndex, attempt + 1);
+                    throw e;
+                }
+                long backoff = retryBackoffMs << attempt;
+                attempt++;
+                log.warn("Embedding batch {} failed (attempt {}/{}), retrying in {}ms: {}",
+                        batchIndex, attempt, maxRetries + 1, backoff, e.getMessage());
+                Thread.sleep(backoff);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
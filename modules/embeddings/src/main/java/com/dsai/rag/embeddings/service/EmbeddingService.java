@@ -1,6 +1,8 @@
 package com.dsai.rag.embeddings.service;
 
+import com.dsai.rag.embeddings.cache.EmbeddingCache;
 import com.dsai.rag.model.Chunk;
+import com.dsai.rag.model.Vectors;
 import dev.langchain4j.data.embedding.Embedding;
 import dev.langchain4j.data.segment.TextSegment;
 import dev.langchain4j.model.embedding.EmbeddingModel;
@@ -9,9 +11,13 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import jakarta.annotation.PreDestroy;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -19,37 +25,44 @@ import java.util.stream.Collectors;
 public class EmbeddingService {
     
     private final EmbeddingModel embeddingModel;
+    private final EmbeddingCache embeddingCache;
+    private final String modelName;
+    private final BatchingEmbedder batchingEmbedder;
     
     public EmbeddingService(
+            EmbeddingCache embeddingCache,
             @Value("${ollama.base-url:http://localhost:11434}") String ollamaBaseUrl,
             @Value("${ollama.embedding-model:nomic-embed-text}") String modelName,
-            @Value("${ollama.timeout:60}") Integer timeout) {
+            @Value("${ollama.timeout:60}") Integer timeout,
+            @Value("${embedding.batch.size:32}") int batchSize,
+            @Value("${embedding.batch.max-in-flight:4}") int maxInFlight,
+            @Value("${embedding.batch.max-retries:3}") int maxRetries,
+            @Value("${embedding.batch.retry-backoff-ms:500}") long retryBackoffMs) {
         
+        this.embeddingCache = embeddingCache;
+        this.modelName = modelName;
         this.embeddingModel = OllamaEmbeddingModel.builder()
                 .baseUrl(ollamaBaseUrl)
                 .modelName(modelName)
                 .timeout(Duration.ofSeconds(timeout))
                 .build();
+        this.batchingEmbedder = new BatchingEmbedder(this::embedAll, batchSize, maxInFlight, maxRetries, retryBackoffMs);
         
-        log.info("Initialized Ollama embedding service with model: {} at {}", modelName, ollamaBaseUrl);
+        log.info("Initialized Ollama embedding service with model: {} at {} (batch size: {}, max in-flight: {})",
+                modelName, ollamaBaseUrl, batchSize, maxInFlight);
     }
     
-    public List<Float> embedText(String text) {
+    public float[] embed(String text) {
         try {
             Embedding embedding = embeddingModel.embed(text).content();
-            float[] vector = embedding.vector();
-            List<Float> result = new ArrayList<>();
-            for (float f : vector) {
-                result.add(f);
-            }
-            return result;
+            return embedding.vector();
         } catch (Exception e) {
             log.error("Failed to generate embedding for text", e);
             throw new RuntimeException("Embedding generation failed", e);
         }
     }
     
-    public List<List<Float>> embedTexts(List<String> texts) {
+    public List<float[]> embedAll(List<String> texts) {
         try {
             List<TextSegment> segments = texts.stream()
                     .map(TextSegment::from)
@@ -57,14 +70,7 @@ public class EmbeddingService {
             
             return embeddingModel.embedAll(segments).content()
                     .stream()
-                    .map(embedding -> {
-                        float[] vector = embedding.vector();
-                        List<Float> result = new ArrayList<>();
-                        for (float f : vector) {
-                            result.add(f);
-                        }
-                        return result;
-                    })
+                    .map(Embedding::vector)
                     .collect(Collectors.toList());
         } catch (Exception e) {
             log.error("Failed to generate embeddings for texts", e);
@@ -72,23 +78,69 @@ public class EmbeddingService {
         }
     }
     
+    /**
+     * 대량 텍스트를 마이크로 배치로 나누어 동시에 임베딩합니다. 결과는 입력 순서를 유지합니다.
+     */
+    public List<float[]> embedAllBatched(List<String> texts, IntConsumer progress) {
+        return batchingEmbedder.embedAll(texts, progress);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        batchingEmbedder.close();
+    }
+    
+    public List<Float> embedText(String text) {
+        return Vectors.asList(embed(text));
+    }
+    
+    public List<List<Float>> embedTexts(List<String> texts) {
+        return embedAll(texts).stream()
+                .map(Vectors::asList)
+                .collect(Collectors.toList());
+    }
+    
     public Chunk embedChunk(Chunk chunk) {
-        List<Float> embedding = embedText(chunk.getContent());
-        chunk.setEmbedding(embedding);
+        chunk.setEmbedding(embed(chunk.getContent()));
         return chunk;
     }
     
     public List<Chunk> embedChunks(List<Chunk> chunks) {
-        List<String> texts = chunks.stream()
-                .map(Chunk::getContent)
-                .collect(Collectors.toList());
+        // 캐시에 없는 청크만 모아서 임베딩 (같은 내용의 청크는 한 번만 요청)
+        Map<String, List<Chunk>> pending = new LinkedHashMap<>();
+        List<Chunk> uncacheable = new ArrayList<>();
+        for (Chunk chunk : chunks) {
+            float[] cached = embeddingCache.get(modelName, chunk.getContentHash());
+            if (cached != null) {
+                chunk.setEmbedding(cached);
+            } else if (chunk.getContentHash() != null) {
+                pending.computeIfAbsent(chunk.getContentHash(), k -> new ArrayList<>()).add(chunk);
+            } else {
+                uncacheable.add(chunk);
+            }
+        }
         
-        List<List<Float>> embeddings = embedTexts(texts);
+        List<Chunk> toEmbed = new ArrayList<>(uncacheable);
+        pending.values().forEach(group -> toEmbed.add(group.get(0)));
         
-        for (int i = 0; i < chunks.size(); i++) {
-            chunks.get(i).setEmbedding(embeddings.get(i));
+        if (!toEmbed.isEmpty()) {
+            List<float[]> embeddings = embedAllBatched(toEmbed.stream()
+                    .map(Chunk::getContent)
+                    .collect(Collectors.toList()), embedded -> { });
+            
+            for (int i = 0; i < toEmbed.size(); i++) {
+                Chunk chunk = toEmbed.get(i);
+                float[] embedding = embeddings.get(i);
+                chunk.setEmbedding(embedding);
+                if (chunk.getContentHash() != null) {
+                    embeddingCache.put(modelName, chunk.getContentHash(), embedding);
+                    pending.get(chunk.getContentHash()).forEach(dup -> dup.setEmbedding(embedding));
+                }
+            }
         }
         
+        log.debug("Embedded {} chunks ({} from cache, {} requested)",
+                chunks.size(), chunks.size() - toEmbed.size(), toEmbed.size());
         return chunks;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,100 @@
+package com.dsai.rag.embeddings.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MappedEmbeddingStoreTest {
+
+    private static final int HEADER_SIZE = 16;
+    private static final int KEY_SIZE = 16;
+    private static final int DIMS = 4;
+    private static final int RECORD_BYTES = KEY_SIZE + DIMS * Float.BYTES + 4;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void vectorsSurviveReopen() throws IOException {
+        Path file = directory.resolve("model.emb");
+        try (MappedEmbeddingStore store = new MappedEmbeddingStore(file)) {
+            store.put("a", vector(1));
+            store.put("b", vector(2));
+            store.put("a", vector(3));
+        }
+
+        try (MappedEmbeddingStore store = new MappedEmbeddingStore(file)) {
+            assertThat(store.size()).isEqualTo(2);
+            assertThat(store.skippedRecords()).isZero();
+            assertThat(store.get("a")).containsExactly(vector(3));
+            assertThat(store.get("b")).containsExactly(vector(2));
+            assertThat(store.get("missing")).isNull();
+        }
+    }
+
+    @Test
+    void corruptedRecordIsSkippedOnOpen() throws IOException {
+        Path file = directory.resolve("model.emb");
+        try (MappedEmbeddingStore store = new MappedEmbeddingStore(file)) {
+            store.put("a", vector(1));
+            store.put("b", vector(2));
+            store.put("c", vector(3));
+        }
+
+        // 두 번째 레코드의 벡터 한 바이트를 뒤집는다
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long offset = HEADER_SIZE + RECORD_BYTES + KEY_SIZE;
+            ByteBuffer buffer = ByteBuffer.allocate(1);
+            channel.read(buffer, offset);
+            buffer.put(0, (byte) ~buffer.get(0)).position(0);
+            channel.write(buffer, offset);
+        }
+
+        try (MappedEmbeddingStore store = new MappedEmbeddingStore(file)) {
+            assertThat(store.skippedRecords()).isEqualTo(1);
+            assertThat(store.size()).isEqualTo(2);
+            assertThat(store.get("a")).containsExactly(vector(1));
+            assertThat(store.get("b")).isNull();
+            assertThat(store.get("c")).containsExactly(vector(3));
+
+            // 버린 레코드의 키는 다시 넣을 수 있다
+            store.put("b", vector(4));
+            assertThat(store.get("b")).containsExactly(vector(4));
+        }
+    }
+
+    @Test
+    void rejectsDimensionMismatch() throws IOException {
+        try (MappedEmbeddingStore store = new MappedEmbeddingStore(directory.resolve("model.emb"))) {
+            store.put("a", vector(1));
+
+            assertThatThrownBy(() -> store.put("b", new float[DIMS + 1]))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    void rejectsForeignFile() throws IOException {
+        Path file = directory.resolve("other.bin");
+        Files.write(file, new byte[64]);
+
+        assertThatThrownBy(() -> new MappedEmbeddingStore(file)).isInstanceOf(IOException.class);
+    }
+
+    private static float[] vector(float seed) {
+        float[] vector = new float[DIMS];
+        for (int i = 0; i < DIMS; i++) {
+            vector[i] = seed + i * 0.5f;
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,99 @@
+package com.dsai.rag.embeddings.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BatchingEmbedderTest {
+
+    @Test
+    void returnsResultsInInputOrder() throws Exception {
+        List<String> texts = IntStream.range(0, 103).mapToObj(String::valueOf).collect(Collectors.toList());
+        // 배치마다 지연을 달리해 완료 순서가 입력 순서와 어긋나게 한다
+        try (BatchingEmbedder embedder = new BatchingEmbedder(batch -> {
+            sleep(ThreadLocalRandom.current().nextInt(20));
+            return encode(batch);
+        }, 10, 4, 0, 1)) {
+
+            List<float[]> vectors = embedder.embedAll(texts);
+
+            assertThat(vectors).hasSize(texts.size());
+            for (int i = 0; i < texts.size(); i++) {
+                assertThat(vectors.get(i)[0]).isEqualTo((float) i);
+            }
+        }
+    }
+
+    @Test
+    void retriesOnlyTheFailedBatch() throws Exception {
+        Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+        try (BatchingEmbedder embedder = new BatchingEmbedder(batch -> {
+            int call = calls.computeIfAbsent(batch.get(0), key -> new AtomicInteger()).incrementAndGet();
+            if (batch.get(0).equals("4") && call < 3) {
+                throw new IllegalStateException("temporarily unavailable");
+            }
+            return encode(batch);
+        }, 2, 2, 3, 1)) {
+
+            List<float[]> vectors = embedder.embedAll(List.of("0", "1", "2", "3", "4", "5"));
+
+            assertThat(vectors).extracting(vector -> vector[0]).containsExactly(0f, 1f, 2f, 3f, 4f, 5f);
+            assertThat(calls.get("4")).hasValue(3);
+            assertThat(calls.get("0")).hasValue(1);
+            assertThat(calls.get("2")).hasValue(1);
+        }
+    }
+
+    @Test
+    void failsAfterRetriesAreExhausted() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        try (BatchingEmbedder embedder = new BatchingEmbedder(batch -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("down");
+        }, 10, 1, 2, 1)) {
+
+            assertThatThrownBy(() -> embedder.embedAll(List.of("a", "b")))
+                    .isInstanceOf(RuntimeException.class)
+                    .hasRootCauseMessage("down");
+            assertThat(calls).hasValue(3);
+        }
+    }
+
+    @Test
+    void reportsCumulativeProgress() throws Exception {
+        List<Integer> progress = new ArrayList<>();
+        try (BatchingEmbedder embedder = new BatchingEmbedder(BatchingEmbedderTest::encode, 3, 1, 0, 1)) {
+            embedder.embedAll(List.of("0", "1", "2", "3", "4", "5", "6"), embedded -> {
+                synchronized (progress) {
+                    progress.add(embedded);
+                }
+            });
+        }
+
+        assertThat(progress).containsExactly(3, 6, 7);
+    }
+
+    private static List<float[]> encode(List<String> batch) {
+        return batch.stream()
+                .map(text -> new float[]{Float.parseFloat(text)})
+                .collect(Collectors.toList());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 plugins {
     `java-library`
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 dependencies {
@@ -11,8 +12,15 @@ dependencies {
     implementation("org.apache.tika:tika-core:${property("tikaVersion")}")
     implementation("org.apache.tika:tika-parsers-standard-package:${property("tikaVersion")}")
     implementation("org.apache.pdfbox:pdfbox:${property("pdfboxVersion")}")
-    implementation("dev.langchain4j:langchain4j-document-parser-apache-tika:${property("langchain4jVersion")}")
     
     implementation("org.springframework:spring-context:6.1.13")
+    implementation("jakarta.annotation:jakarta.annotation-api:2.1.1")
     implementation("commons-codec:commons-codec:1.16.0")
-}
\ No newline at end of file
+}
+
+// ./gradlew :modules:ingestion:jmh
+jmh {
+    warmupIterations.set(2)
+    iterations.set(5)
+    fork.set(1)
+}
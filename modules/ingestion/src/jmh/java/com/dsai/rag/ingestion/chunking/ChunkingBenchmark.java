@@ -0,0 +1,91 @@
+package com.dsai.rag.ingestion.chunking;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 10MB 텍스트에 대한 기존 정규식 split 청커와 SentenceChunker 비교
+ * 두 구현 모두 청크 문자열까지 만들어 소비하도록 맞춥니다.
+ * unpunctuated 는 문장 구두점이 없는 본문(코드, CSV 등)으로, 문장 경계 탐색이 청크마다 끝까지 훑지 않는지 확인합니다.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class ChunkingBenchmark {
+
+    private static final int CHUNK_SIZE = 500;
+    private static final int CHUNK_OVERLAP = 100;
+
+    @Param({"10000000"})
+    private int textLength;
+
+    @Param({"punctuated", "unpunctuated"})
+    private String corpus;
+
+    private String text;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        String[] words = {"검색", "증강", "생성", "문서", "임베딩", "vector", "index", "chunk", "query", "model"};
+        StringBuilder sb = new StringBuilder(textLength + 256);
+        while (sb.length() < textLength) {
+            int wordCount = 4 + random.nextInt(24);
+            for (int i = 0; i < wordCount; i++) {
+                if (i > 0) {
+                    sb.append(' ');
+                }
+                sb.append(words[random.nextInt(words.length)]);
+            }
+            if ("unpunctuated".equals(corpus)) {
+                sb.append(random.nextInt(10) == 0 ? "\n" : " ");
+            } else {
+                sb.append(random.nextInt(10) == 0 ? "?\n" : ". ");
+            }
+        }
+        text = sb.toString();
+    }
+
+    @Benchmark
+    public void sentenceChunker(Blackhole blackhole) {
+        SentenceChunker.split(text, CHUNK_SIZE, CHUNK_OVERLAP,
+                (start, end) -> blackhole.consume(text.substring(start, end)));
+    }
+
+    @Benchmark
+    public void legacyRegexChunker(Blackhole blackhole) {
+        String[] sentences = text.split("(?<=[.!?])\\s+");
+        StringBuilder currentChunk = new StringBuilder();
+        List<String> overlapBuffer = new ArrayList<>();
+
+        for (String sentence : sentences) {
+            if (currentChunk.length() + sentence.length() > CHUNK_SIZE && currentChunk.length() > 0) {
+                blackhole.consume(currentChunk.toString().trim());
+
+                currentChunk = new StringBuilder();
+                for (String overlap : overlapBuffer) {
+                    currentChunk.append(overlap).append(" ");
+                }
+                overlapBuffer.clear();
+            }
+
+            currentChunk.append(sentence).append(" ");
+
+            if (sentence.length() <= CHUNK_OVERLAP) {
+                overlapBuffer.add(sentence);
+                if (overlapBuffer.stream().mapToInt(String::length).sum() > CHUNK_OVERLAP) {
+                    overlapBuffer.remove(0);
+                }
+            }
+        }
+
+        if (currentChunk.length() > 0) {
+            blackhole.consume(currentChunk.toString().trim());
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.dsai.rag.ingestion.batch;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 배치 인제스천 집계 결과
+ */
+@Data
+@Builder
+public class BatchIngestionResult {
+    private int totalDocuments;
+    private int succeeded;
+    private int failed;
+    private long totalChunks;
+    private long bulkRequests;
+    private long elapsedMs;
+    private double docsPerSecond;
+    private double chunksPerSecond;
+    private List<String> documentIds;
+    private List<Failure> failures;
+
+    @Data
+    @Builder
+    public static class Failure {
+        private String path;
+        private String error;
+    }
+}
@@ -0,0 +1,244 @@
+package com.dsai.rag.ingestion.batch;
+
+import com.dsai.rag.common.exception.RagException;
+import com.dsai.rag.ingestion.service.DocumentIngestionService;
+import com.dsai.rag.ingestion.service.IngestionPipeline;
+import com.dsai.rag.model.Chunk;
+import com.dsai.rag.model.Document;
+import com.dsai.rag.vectorstore.service.VectorStoreService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * 디렉터리 / ZIP 단위 대량 인제스천
+ * 문서들을 워커 풀에 나누어 처리하고, 임베딩은 EmbeddingService 의 공유 배처를,
+ * 색인은 문서 간에 공유되는 CoalescingChunkWriter 를 통해 큰 bulk 요청으로 묶습니다.
+ */
+@Slf4j
+@Service
+public class BatchIngestionService {
+
+    private static final Set<String> SUPPORTED_EXTENSIONS = Set.of(
+            "pdf", "md", "html", "htm", "docx", "txt", "json", "xml");
+
+    private final DocumentIngestionService ingestionService;
+    private final VectorStoreService vectorStoreService;
+    private final int workers;
+    private final int bulkFlushSize;
+
+    public BatchIngestionService(
+            DocumentIngestionService ingestionService,
+            VectorStoreService vectorStoreService,
+            @Value("${ingestion.bulk.workers:4}") int workers,
+            @Value("${ingestion.bulk.flush-size:500}") int bulkFlushSize) {
+        this.ingestionService = ingestionService;
+        this.vectorStoreService = vectorStoreService;
+        this.workers = Math.max(1, workers);
+        this.bulkFlushSize = bulkFlushSize;
+    }
+
+    public BatchIngestionResult ingestDirectory(Path directory, boolean recursive) {
+        if (!Files.isDirectory(directory)) {
+            throw new RagException(RagException.ErrorCode.INVALID_REQUEST, "Not a directory: " + directory);
+        }
+        // 로컬 디렉터리는 경로가 곧 문서 식별자이므로 경로를 키로 넘겨 증분 재인제스천
+        return ingestFiles(listSupportedFiles(directory, recursive),
+                file -> file.toAbsolutePath().normalize().toString());
+    }
+
+    /**
+     * ZIP 을 임시 디렉터리에 풀어서 인제스천한 뒤 정리합니다.
+     */
+    public BatchIngestionResult ingestZip(InputStream zipStream) {
+        Path tempDir = null;
+        try {
+            tempDir = Files.createTempDirectory("batch-ingest-");
+            extract(zipStream, tempDir);
+            // 아카이브 내부 경로는 다른 아카이브와 겹칠 수 있으므로 키 없이 새 문서로 색인
+            return ingestFiles(listSupportedFiles(tempDir, true), file -> null);
+        } catch (IOException e) {
+            throw new RagException(RagException.ErrorCode.INGESTION_ERROR, e);
+        } finally {
+            deleteRecursively(tempDir);
+        }
+    }
+
+    /**
+     * 문서는 공유 버퍼의 청크가 모두 flush 된 뒤에만 레지스트리에 등록됩니다.
+     * bulk 요청이 실패한 문서는 실패로 집계되고 이번 배치에서 쓴 청크를 지우므로 같은 파일을 다시 올릴 수 있습니다.
+     *
+     * @param documentKey 파일별 문서 식별 키. null 을 돌려주면 증분 비교 없이 새 문서로 색인합니다.
+     */
+    public BatchIngestionResult ingestFiles(List<Path> files, Function<Path, String> documentKey) {
+        long startTime = System.currentTimeMillis();
+        CoalescingChunkWriter writer = new CoalescingChunkWriter(vectorStoreService, bulkFlushSize);
+        AtomicLong totalChunks = new AtomicLong();
+        AtomicInteger completed = new AtomicInteger();
+        List<String> documentIds = new ArrayList<>();
+        List<Ingested> ingested = Collections.synchronizedList(new ArrayList<>());
+        List<BatchIngestionResult.Failure> failures = Collections.synchronizedList(new ArrayList<>());
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(workers)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Path file : files) {
+                futures.add(executor.submit(() -> {
+                    AtomicInteger indexed = new AtomicInteger();
+                    Set<String> written = Collections.synchronizedSet(new HashSet<>());
+                    try {
+                        Document document = ingestionService.ingestDocument(file, documentKey.apply(file), new IngestionPipeline.Progress() {
+                            @Override
+                            public void indexed(int chunks) {
+                                indexed.set(chunks);
+                            }
+
+                            @Override
+                            public void writing(List<Chunk> batch) {
+                                batch.forEach(chunk -> written.add(chunk.getId()));
+                            }
+                        }, writer);
+                        ingested.add(new Ingested(file, document, indexed.get(), written));
+                    } catch (Exception e) {
+                        log.warn("Batch ingestion failed for {}: {}", file, e.getMessage());
+                        failures.add(BatchIngestionResult.Failure.builder()
+                                .path(file.toString())
+                                .error(e.getMessage())
+                                .build());
+                    }
+                    int done = completed.incrementAndGet();
+                    if (done % 100 == 0) {
+                        log.info("Batch ingestion progress: {}/{} documents", done, files.size());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RagException(RagException.ErrorCode.INGESTION_ERROR, e);
+        } catch (ExecutionException e) {
+            throw new RagException(RagException.ErrorCode.INGESTION_ERROR, e.getCause());
+        }
+
+        // 남은 버퍼까지 보낸 뒤에야 각 문서의 색인 성공 여부가 확정된다
+        writer.flush();
+        for (Ingested result : ingested) {
+            Document document = result.document();
+            Optional<Exception> failure = writer.getFailure(document.getId());
+            if (failure.isPresent()) {
+                log.warn("Batch ingestion failed for {}: bulk indexing error: {}", result.file(), failure.get().getMessage());
+                ingestionService.deleteChunks(result.written());
+                failures.add(BatchIngestionResult.Failure.builder()
+                        .path(result.file().toString())
+                        .error(failure.get().getMessage())
+                        .build());
+                continue;
+            }
+            ingestionService.registerDocument(document);
+            documentIds.add(document.getId());
+            totalChunks.addAndGet(result.indexed());
+        }
+
+        long elapsedMs = Math.max(1, System.currentTimeMillis() - startTime);
+        double seconds = elapsedMs / 1000.0;
+        BatchIngestionResult result = BatchIngestionResult.builder()
+                .totalDocuments(files.size())
+                .succeeded(documentIds.size())
+                .failed(failures.size())
+                .totalChunks(totalChunks.get())
+                .bulkRequests(writer.getBulkRequests())
+                .elapsedMs(elapsedMs)
+                .docsPerSecond(documentIds.size() / seconds)
+                .chunksPerSecond(totalChunks.get() / seconds)
+                .documentIds(new ArrayList<>(documentIds))
+                .failures(new ArrayList<>(failures))
+                .build();
+
+        log.info("[Performance] Batch ingestion of {} documents ({} failed) took {}ms: {} docs/sec, {} chunks/sec",
+                files.size(), failures.size(), elapsedMs,
+                String.format("%.2f", result.getDocsPerSecond()), String.format("%.2f", result.getChunksPerSecond()));
+        return result;
+    }
+
+    private record Ingested(Path file, Document document, int indexed, Set<String> written) {}
+
+    private static List<Path> listSupportedFiles(Path directory, boolean recursive) {
+        try (Stream<Path> paths = recursive ? Files.walk(directory) : Files.list(directory)) {
+            List<Path> files = paths
+                    .filter(Files::isRegularFile)
+                    .filter(BatchIngestionService::isSupported)
+                    .sorted()
+                    .collect(Collectors.toList());
+            log.info("Found {} documents to ingest under {}", files.size(), directory);
+            return files;
+        } catch (IOException e) {
+            throw new RagException(RagException.ErrorCode.INGESTION_ERROR, e);
+        }
+    }
+
+    private static boolean isSupported(Path path) {
+        String name = path.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 && SUPPORTED_EXTENSIONS.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    private static void extract(InputStream zipStream, Path targetDir) throws IOException {
+        try (ZipInputStream zip = new ZipInputStream(zipStream)) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                Path target = targetDir.resolve(entry.getName()).normalize();
+                if (!target.startsWith(targetDir)) {
+                    throw new IOException("ZIP entry outside target directory: " + entry.getName());
+                }
+                if (entry.isDirectory()) {
+                    Files.createDirectories(target);
+                } else {
+                    Files.createDirectories(target.getParent());
+                    Files.copy(zip, target);
+                }
+            }
+        }
+    }
+
+    private static void deleteRecursively(Path directory) {
+        if (directory == null) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    log.warn("Failed to delete {}: {}", path, e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            log.warn("Failed to clean up {}: {}", directory, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.dsai.rag.ingestion.batch;
+
+import com.dsai.rag.model.Chunk;
+import com.dsai.rag.vectorstore.service.VectorStoreService;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * 여러 문서 파이프라인이 공유하는 색인 writer
+ * 작은 배치들을 flushSize 까지 모았다가 한 번의 bulk 요청으로 보냅니다.
+ * bulk 요청이 실패하면 flush 를 부른 문서가 아니라 그 버퍼에 청크가 있던 문서들의 실패로 기록합니다.
+ */
+@Slf4j
+public class CoalescingChunkWriter implements Consumer<List<Chunk>> {
+
+    private final VectorStoreService vectorStoreService;
+    private final int flushSize;
+    private List<Chunk> buffer;
+    private long bulkRequests;
+    private final Map<String, Exception> failures = new ConcurrentHashMap<>();
+
+    public CoalescingChunkWriter(VectorStoreService vectorStoreService, int flushSize) {
+        this.vectorStoreService = vectorStoreService;
+        this.flushSize = Math.max(1, flushSize);
+        this.buffer = new ArrayList<>(this.flushSize);
+    }
+
+    @Override
+    public void accept(List<Chunk> chunks) {
+        List<Chunk> toWrite = null;
+        synchronized (this) {
+            buffer.addAll(chunks);
+            if (buffer.size() >= flushSize) {
+                toWrite = buffer;
+                buffer = new ArrayList<>(flushSize);
+            }
+        }
+        if (toWrite != null) {
+            write(toWrite);
+        }
+    }
+
+    public void flush() {
+        List<Chunk> toWrite;
+        synchronized (this) {
+            toWrite = buffer;
+            buffer = new ArrayList<>(flushSize);
+        }
+        if (!toWrite.isEmpty()) {
+            write(toWrite);
+        }
+    }
+
+    public synchronized long getBulkRequests() {
+        return bulkRequests;
+    }
+
+    /**
+     * 해당 문서의 청크가 포함된 bulk 요청 중 실패한 것이 있으면 그 예외를 돌려줍니다.
+     */
+    public Optional<Exception> getFailure(String documentId) {
+        return Optional.ofNullable(failures.get(documentId));
+    }
+
+    private void write(List<Chunk> chunks) {
+        synchronized (this) {
+            bulkRequests++;
+        }
+        try {
+            vectorStoreService.upsertBatch(chunks);
+            log.debug("Flushed {} chunks in one bulk request", chunks.size());
+        } catch (Exception e) {
+            log.warn("Bulk request of {} chunks failed: {}", chunks.size(), e.getMessage());
+            chunks.forEach(chunk -> failures.putIfAbsent(chunk.getDocumentId(), e));
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.dsai.rag.ingestion.chunking;
+
+import com.dsai.rag.model.Chunk;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * 코드 블록(``` / ~~~)과 표(| 로 시작하거나 탭으로 구분된 연속 행)를 CODE / TABLE 청크로 떼어 내고,
+ * 나머지 본문은 추정 토큰 기준 문장 청커로 나누는 전략의 공통 구현.
+ * 블록이 maxTokens 를 넘으면 줄 단위로 나눕니다.
+ */
+abstract class BlockChunkingStrategy implements ChunkingStrategy {
+
+    private static final int MAX_HEADING_LEVEL = 6;
+
+    private final boolean headingSections;
+
+    /**
+     * @param headingSections true 면 마크다운 제목(#)에서 본문을 끊고 제목 경로를 section 으로 붙입니다.
+     */
+    protected BlockChunkingStrategy(boolean headingSections) {
+        this.headingSections = headingSections;
+    }
+
+    @Override
+    public void chunk(CharSequence text, Options options, Consumer<ChunkSpan> sink) {
+        int length = text.length();
+        String[] headings = new String[MAX_HEADING_LEVEL];
+        String section = null;
+        int textStart = 0;
+        int lineStart = 0;
+
+        while (lineStart < length) {
+            int lineEnd = lineEnd(text, lineStart);
+            int contentStart = skipIndent(text, lineStart, lineEnd);
+
+            if (isFence(text, contentStart, lineEnd)) {
+                char fence = text.charAt(contentStart);
+                int blockEnd = length;
+                int next = nextLine(text, lineEnd);
+                while (next < length) {
+                    int end = lineEnd(text, next);
+                    if (isFence(text, skipIndent(text, next, end), end)
+                            && text.charAt(skipIndent(text, next, end)) == fence) {
+                        blockEnd = end;
+                        break;
+                    }
+                    next = nextLine(text, end);
+                }
+                flushText(text, textStart, lineStart, section, options, sink);
+                emitBlock(text, lineStart, blockEnd, Chunk.ChunkType.CODE, section, options, sink);
+                lineStart = textStart = nextLine(text, blockEnd);
+                continue;
+            }
+
+            if (isTableRow(text, contentStart, lineEnd)) {
+                int blockEnd = lineEnd;
+                int next = nextLine(text, lineEnd);
+                while (next < length) {
+                    int end = lineEnd(text, next);
+                    if (!isTableRow(text, skipIndent(text, next, end), end)) {
+                        break;
+                    }
+                    blockEnd = end;
+                    next = nextLine(text, end);
+                }
+                // 한 줄짜리는 표로 보지 않음
+                if (blockEnd > lineEnd) {
+                    flushText(text, textStart, lineStart, section, options, sink);
+                    emitBlock(text, lineStart, blockEnd, Chunk.ChunkType.TABLE, section, options, sink);
+                    lineStart = textStart = next;
+                    continue;
+                }
+            }
+
+            if (headingSections) {
+                int level = headingLevel(text, contentStart, lineEnd);
+                if (level > 0) {
+                    flushText(text, textStart, lineStart, section, options, sink);
+                    headings[level - 1] = text.subSequence(contentStart + level, lineEnd).toString().trim();
+                    Arrays.fill(headings, level, MAX_HEADING_LEVEL, null);
+                    section = Arrays.stream(headings).filter(Objects::nonNull).collect(Collectors.joining(" > "));
+                    // 제목 줄은 이어지는 본문 청크에 포함
+                    textStart = lineStart;
+                }
+            }
+
+            lineStart = nextLine(text, lineEnd);
+        }
+
+        flushText(text, textStart, length, section, options, sink);
+    }
+
+    protected boolean isTableRow(CharSequence text, int start, int end) {
+        if (start >= end) {
+            return false;
+        }
+        if (text.charAt(start) == '|') {
+            return true;
+        }
+        int tabs = 0;
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) == '\t' && ++tabs >= 2) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void flushText(CharSequence text, int from, int to, String section,
+                                  Options options, Consumer<ChunkSpan> sink) {
+        SentenceChunker.split(text, from, to, options.maxTokens(), options.overlapTokens(), TokenEstimator.TOKENS,
+                (start, end) -> sink.accept(new ChunkSpan(start, end, Chunk.ChunkType.TEXT, section)));
+    }
+
+    private static void emitBlock(CharSequence text, int from, int to, Chunk.ChunkType type, String section,
+                                  Options options, Consumer<ChunkSpan> sink) {
+        while (to > from && Character.isWhitespace(text.charAt(to - 1))) {
+            to--;
+        }
+        if (TokenEstimator.estimate(text, from, to) <= options.maxTokens()) {
+            sink.accept(new ChunkSpan(from, to, type, section));
+            return;
+        }
+
+        int pieceStart = from;
+        int pieceEnd = from;
+        int pieceTokens = 0;
+        int lineStart = from;
+        while (lineStart < to) {
+            int lineEnd = Math.min(lineEnd(text, lineStart), to);
+            int lineTokens = TokenEstimator.estimate(text, lineStart, lineEnd);
+            if (pieceTokens > 0 && pieceTokens + lineTokens > options.maxTokens()) {
+                sink.accept(new ChunkSpan(pieceStart, pieceEnd, type, section));
+                pieceStart = lineStart;
+                pieceTokens = 0;
+            }
+            pieceTokens += lineTokens;
+            pieceEnd = lineEnd;
+            lineStart = lineEnd + 1;
+        }
+        sink.accept(new ChunkSpan(pieceStart, pieceEnd, type, section));
+    }
+
+    private static boolean isFence(CharSequence text, int start, int end) {
+        if (end - start < 3) {
+            return false;
+        }
+        char c = text.charAt(start);
+        return (c == '`' || c == '~') && text.charAt(start + 1) == c && text.charAt(start + 2) == c;
+    }
+
+    private static int headingLevel(CharSequence text, int start, int end) {
+        int level = 0;
+        while (start + level < end && text.charAt(start + level) == '#') {
+            level++;
+        }
+        if (level == 0 || level > MAX_HEADING_LEVEL) {
+            return 0;
+        }
+        return start + level == end || text.charAt(start + level) == ' ' || text.charAt(start + level) == '\t'
+                ? level : 0;
+    }
+
+    private static int lineEnd(CharSequence text, int position) {
+        int length = text.length();
+        while (position < length && text.charAt(position) != '\n') {
+            position++;
+        }
+        return position;
+    }
+
+    private static int nextLine(CharSequence text, int lineEnd) {
+        return Math.min(lineEnd + 1, text.length());
+    }
+
+    private static int skipIndent(CharSequence text, int start, int end) {
+        while (start < end && (text.charAt(start) == ' ' || text.charAt(start) == '\t')) {
+            start++;
+        }
+        return start;
+    }
+}
@@ -0,0 +1,27 @@
+package com.dsai.rag.ingestion.chunking;
+
+import com.dsai.rag.model.Chunk;
+
+import java.util.function.Consumer;
+
+/**
+ * 문서 본문을 청크 구간으로 나누는 전략
+ * ChunkingService 가 문서 타입별 설정(ingestion.chunking.strategies)에 따라 이름으로 골라 씁니다.
+ */
+public interface ChunkingStrategy {
+
+    String name();
+
+    void chunk(CharSequence text, Options options, Consumer<ChunkSpan> sink);
+
+    /**
+     * @param chunkSize / chunkOverlap 문자 단위 크기 (sentence 전략)
+     * @param maxTokens / overlapTokens 추정 토큰 단위 크기 (그 외 전략)
+     */
+    record Options(int chunkSize, int chunkOverlap, int maxTokens, int overlapTokens) {}
+
+    /**
+     * 원문 [start, end) 구간과 청크 타입. section 은 구조를 아는 전략이 채우는 제목 경로입니다.
+     */
+    record ChunkSpan(int start, int end, Chunk.ChunkType type, String section) {}
+}
@@ -0,0 +1,19 @@
+package com.dsai.rag.ingestion.chunking;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * 마크다운 전략. 제목(#) 단위로 본문을 끊고, 코드 블록과 표는 별도 청크로 만듭니다.
+ */
+@Component
+public class MarkdownChunkingStrategy extends BlockChunkingStrategy {
+
+    public MarkdownChunkingStrategy() {
+        super(true);
+    }
+
+    @Override
+    public String name() {
+        return "markdown";
+    }
+}
@@ -0,0 +1,134 @@
+package com.dsai.rag.ingestion.chunking;
+
+import java.util.Arrays;
+
+/**
+ * 문장 경계(. ! ? 뒤의 공백) 기준 청커
+ * 원문을 한 번만 훑으면서 청크를 [start, end) 오프셋 범위로 내보내므로 문장 배열이나 중간 문자열을 만들지 않습니다.
+ * 오버랩은 직전 청크 끝에서 chunkOverlap 이내에 들어오는 연속된 문장들이며, 다음 청크는 그 문장의 시작 위치부터 시작합니다.
+ * 크기는 Measure 로 잽니다 (기본은 문자 수). 한 문장이 최대 크기를 넘으면 단어 경계에서 나눕니다.
+ */
+public final class SentenceChunker {
+
+    @FunctionalInterface
+    public interface RangeConsumer {
+        void accept(int start, int end);
+    }
+
+    /**
+     * text 의 [start, end) 구간 크기. 공백 경계에서 나눈 구간들의 합이 전체 크기와 같아야 합니다.
+     */
+    @FunctionalInterface
+    public interface Measure {
+        Measure CHARS = (text, start, end) -> end - start;
+
+        int of(CharSequence text, int start, int end);
+    }
+
+    private SentenceChunker() {
+    }
+
+    public static void split(CharSequence text, int chunkSize, int chunkOverlap, RangeConsumer sink) {
+        split(text, 0, text.length(), chunkSize, chunkOverlap, Measure.CHARS, sink);
+    }
+
+    public static void split(CharSequence text, int from, int to, int maxSize, int overlap,
+                             Measure measure, RangeConsumer sink) {
+        int position = skipWhitespace(text, from, to);
+        if (position >= to) {
+            return;
+        }
+
+        // 현재 청크에 들어 있는 문장들의 시작 오프셋과, 다음 문장 시작까지의 크기
+        int[] sentenceStarts = new int[16];
+        int[] sentenceSpans = new int[16];
+        int sentenceCount = 0;
+        int chunkStart = position;
+        int chunkEnd = position;
+        int chunkSize = 0;
+        int lastSentenceSize = 0;
+
+        while (position < to) {
+            int sentenceEnd = sentenceEnd(text, position, to, maxSize, measure);
+            int sentenceSize = measure.of(text, position, sentenceEnd);
+
+            if (sentenceCount > 0 && chunkSize + sentenceSize > maxSize) {
+                sink.accept(chunkStart, chunkEnd);
+
+                // 끝에서부터 overlap 안에 들어오는 문장들만 남긴다 (청크 전체를 남기지는 않음)
+                int keepFrom = sentenceCount;
+                int suffixSize = 0;
+                while (keepFrom > 1) {
+                    int candidate = keepFrom == sentenceCount
+                            ? lastSentenceSize
+                            : suffixSize + sentenceSpans[keepFrom - 1];
+                    if (candidate > overlap) {
+                        break;
+                    }
+                    suffixSize = candidate;
+                    keepFrom--;
+                }
+                int kept = sentenceCount - keepFrom;
+                System.arraycopy(sentenceStarts, keepFrom, sentenceStarts, 0, kept);
+                System.arraycopy(sentenceSpans, keepFrom, sentenceSpans, 0, kept);
+                sentenceCount = kept;
+                chunkStart = kept > 0 ? sentenceStarts[0] : position;
+                chunkSize = 0;
+                for (int i = 0; i < kept; i++) {
+                    chunkSize += sentenceSpans[i];
+                }
+            }
+
+            if (sentenceCount == sentenceStarts.length) {
+                sentenceStarts = Arrays.copyOf(sentenceStarts, sentenceCount * 2);
+                sentenceSpans = Arrays.copyOf(sentenceSpans, sentenceCount * 2);
+            }
+            int next = skipWhitespace(text, sentenceEnd, to);
+            sentenceStarts[sentenceCount] = position;
+            sentenceSpans[sentenceCount] = sentenceSize + measure.of(text, sentenceEnd, next);
+            chunkSize += sentenceSpans[sentenceCount];
+            sentenceCount++;
+            lastSentenceSize = sentenceSize;
+            chunkEnd = sentenceEnd;
+            position = next;
+        }
+
+        sink.accept(chunkStart, chunkEnd);
+    }
+
+    /**
+     * position 에서 시작하는 문장의 끝(구두점 다음, 후행 공백 제외) 오프셋.
+     * 문장이 maxSize 를 넘으면 maxSize 안에 들어오는 마지막 단어 경계를 돌려줍니다.
+     * 단어 단위로 크기를 더해 가며 한 번만 훑으므로, 구두점이 없는 본문(코드, CSV 등)에서도 maxSize 근처에서 멈춥니다.
+     */
+    private static int sentenceEnd(CharSequence text, int position, int to, int maxSize, Measure measure) {
+        int size = 0;
+        int cut = -1;
+        int i = position;
+        while (i < to) {
+            int wordEnd = i;
+            while (wordEnd < to && !Character.isWhitespace(text.charAt(wordEnd))) {
+                wordEnd++;
+            }
+            if (cut != -1 && size + measure.of(text, i, wordEnd) > maxSize) {
+                return cut;
+            }
+            char last = text.charAt(wordEnd - 1);
+            int next = skipWhitespace(text, wordEnd, to);
+            if (next >= to || (wordEnd < to && (last == '.' || last == '!' || last == '?'))) {
+                return wordEnd;
+            }
+            size += measure.of(text, i, next);
+            cut = wordEnd;
+            i = next;
+        }
+        return to;
+    }
+
+    static int skipWhitespace(CharSequence text, int position, int to) {
+        while (position < to && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+}
@@ -0,0 +1,24 @@
+package com.dsai.rag.ingestion.chunking;
+
+import com.dsai.rag.model.Chunk;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Consumer;
+
+/**
+ * 문자 수 기준 문장 청커 (기존 동작)
+ */
+@Component
+public class SentenceChunkingStrategy implements ChunkingStrategy {
+
+    @Override
+    public String name() {
+        return "sentence";
+    }
+
+    @Override
+    public void chunk(CharSequence text, Options options, Consumer<ChunkSpan> sink) {
+        SentenceChunker.split(text, options.chunkSize(), options.chunkOverlap(),
+                (start, end) -> sink.accept(new ChunkSpan(start, end, Chunk.ChunkType.TEXT, null)));
+    }
+}
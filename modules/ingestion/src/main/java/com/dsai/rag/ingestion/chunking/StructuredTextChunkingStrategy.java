@@ -0,0 +1,19 @@
+package com.dsai.rag.ingestion.chunking;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * 일반 텍스트용 전략. 코드 블록과 표는 별도 청크로 만들고 나머지는 토큰 기준으로 나눕니다.
+ */
+@Component
+public class StructuredTextChunkingStrategy extends BlockChunkingStrategy {
+
+    public StructuredTextChunkingStrategy() {
+        super(false);
+    }
+
+    @Override
+    public String name() {
+        return "structured";
+    }
+}
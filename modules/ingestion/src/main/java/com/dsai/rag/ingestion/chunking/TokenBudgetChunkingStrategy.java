@@ -0,0 +1,26 @@
+package com.dsai.rag.ingestion.chunking;
+
+import com.dsai.rag.model.Chunk;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Consumer;
+
+/**
+ * 추정 토큰 수 기준 문장 청커
+ * 한국어처럼 글자당 토큰이 많은 텍스트도 청크마다 토큰 수가 고르게 나오도록 maxTokens 안에서 문장을 채웁니다.
+ */
+@Component
+public class TokenBudgetChunkingStrategy implements ChunkingStrategy {
+
+    @Override
+    public String name() {
+        return "token";
+    }
+
+    @Override
+    public void chunk(CharSequence text, Options options, Consumer<ChunkSpan> sink) {
+        SentenceChunker.split(text, 0, text.length(), options.maxTokens(), options.overlapTokens(),
+                TokenEstimator.TOKENS,
+                (start, end) -> sink.accept(new ChunkSpan(start, end, Chunk.ChunkType.TEXT, null)));
+    }
+}
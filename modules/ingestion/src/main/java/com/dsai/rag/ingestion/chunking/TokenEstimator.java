@@ -0,0 +1,36 @@
+package com.dsai.rag.ingestion.chunking;
+
+/**
+ * 임베딩 모델 토크나이저를 쓰지 않는 토큰 수 근사치
+ * 영문/숫자 연속 구간은 4글자당 1토큰, 한글·한자 등 비 ASCII 문자와 구두점은 글자당 1토큰, 공백은 0으로 셉니다.
+ * 서브워드 토크나이저에서 한국어가 글자 단위 이상으로 쪼개지는 것을 감안한 보수적인 값입니다.
+ */
+public final class TokenEstimator {
+
+    public static final SentenceChunker.Measure TOKENS = TokenEstimator::estimate;
+
+    private TokenEstimator() {
+    }
+
+    public static int estimate(CharSequence text) {
+        return estimate(text, 0, text.length());
+    }
+
+    public static int estimate(CharSequence text, int start, int end) {
+        int tokens = 0;
+        int asciiRun = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < 128 && Character.isLetterOrDigit(c)) {
+                asciiRun++;
+                continue;
+            }
+            tokens += (asciiRun + 3) / 4;
+            asciiRun = 0;
+            if (!Character.isWhitespace(c)) {
+                tokens++;
+            }
+        }
+        return tokens + (asciiRun + 3) / 4;
+    }
+}
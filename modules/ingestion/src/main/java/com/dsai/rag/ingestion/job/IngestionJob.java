@@ -0,0 +1,141 @@
+package com.dsai.rag.ingestion.job;
+
+import com.dsai.rag.ingestion.service.IngestionPipeline;
+import com.dsai.rag.model.Chunk;
+import com.dsai.rag.model.Document;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 비동기 인제스천 작업 상태
+ * 작업 스레드가 갱신하고 상태 조회 API 가 읽으므로 모든 필드는 volatile / atomic 입니다.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class IngestionJob implements IngestionPipeline.Progress {
+
+    public enum Phase {
+        QUEUED, PARSING, INDEXING, COMPLETED, FAILED, CANCELLED;
+
+        public boolean isFinished() {
+            return this == COMPLETED || this == FAILED || this == CANCELLED;
+        }
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final String filename;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+    private final AtomicInteger chunksProduced = new AtomicInteger();
+    private final AtomicInteger chunksEmbedded = new AtomicInteger();
+    private final AtomicInteger chunksIndexed = new AtomicInteger();
+    // 이 작업이 색인 단계로 넘긴 청크. 취소 시 이것만 지우고 기존 버전의 청크는 남긴다
+    private final Set<String> writtenChunkIds = ConcurrentHashMap.newKeySet();
+
+    private volatile Phase phase = Phase.QUEUED;
+    private volatile String documentId;
+    private volatile Document document;
+    private volatile String error;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile Future<?> future;
+
+    public IngestionJob(String filename) {
+        this.filename = filename;
+    }
+
+    @Override
+    public void parsed(String documentId) {
+        this.documentId = documentId;
+        this.phase = Phase.INDEXING;
+    }
+
+    @Override
+    public void chunked(int chunks) {
+        chunksProduced.set(chunks);
+    }
+
+    @Override
+    public void embedded(int chunks) {
+        chunksEmbedded.set(chunks);
+    }
+
+    @Override
+    public void indexed(int chunks) {
+        chunksIndexed.set(chunks);
+    }
+
+    @Override
+    public void writing(List<Chunk> batch) {
+        batch.forEach(chunk -> writtenChunkIds.add(chunk.getId()));
+    }
+
+    void start() {
+        this.startedAt = LocalDateTime.now();
+        this.phase = Phase.PARSING;
+    }
+
+    void complete(Document document) {
+        this.document = document;
+        finish(Phase.COMPLETED);
+    }
+
+    void fail(String error) {
+        this.error = error;
+        finish(Phase.FAILED);
+    }
+
+    /**
+     * 이미 끝난 작업은 취소 상태로 바꾸지 않습니다.
+     */
+    synchronized boolean cancel() {
+        if (phase.isFinished()) {
+            return false;
+        }
+        finish(Phase.CANCELLED);
+        if (future != null) {
+            future.cancel(true);
+        }
+        return true;
+    }
+
+    private synchronized void finish(Phase finalPhase) {
+        if (phase.isFinished()) {
+            return;
+        }
+        this.phase = finalPhase;
+        this.finishedAt = LocalDateTime.now();
+    }
+
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    Set<String> writtenChunkIds() {
+        return writtenChunkIds;
+    }
+
+    public String getId() { return id; }
+    public String getFilename() { return filename; }
+    public Phase getPhase() { return phase; }
+    public String getDocumentId() { return documentId; }
+    public Document getDocument() { return document; }
+    public String getError() { return error; }
+    public int getChunksProduced() { return chunksProduced.get(); }
+    public int getChunksEmbedded() { return chunksEmbedded.get(); }
+    public int getChunksIndexed() { return chunksIndexed.get(); }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+
+    @JsonIgnore
+    public boolean isFinished() {
+        return phase.isFinished();
+    }
+}
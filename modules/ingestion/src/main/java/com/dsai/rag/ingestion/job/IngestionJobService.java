@@ -0,0 +1,168 @@
+package com.dsai.rag.ingestion.job;
+
+import com.dsai.rag.common.exception.RagException;
+import com.dsai.rag.ingestion.service.DocumentIngestionService;
+import com.dsai.rag.model.Document;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 비동기 문서 인제스천 작업 관리
+ * 요청 스레드는 작업을 등록하고 바로 반환하며, 실제 처리는 크기가 제한된 전용 워커 풀에서 수행됩니다.
+ */
+@Slf4j
+@Service
+public class IngestionJobService {
+
+    private final DocumentIngestionService ingestionService;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, IngestionJob> jobs = new ConcurrentHashMap<>();
+    private final long retentionMinutes;
+
+    public IngestionJobService(
+            DocumentIngestionService ingestionService,
+            @Value("${ingestion.jobs.workers:2}") int workers,
+            @Value("${ingestion.jobs.queue-capacity:100}") int queueCapacity,
+            @Value("${ingestion.jobs.retention-minutes:60}") long retentionMinutes) {
+        this.ingestionService = ingestionService;
+        this.retentionMinutes = retentionMinutes;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "ingestion-job-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        log.info("Initialized ingestion job service with {} workers and queue capacity {}", workers, queueCapacity);
+    }
+
+    /**
+     * 작업을 등록합니다. deleteAfter 가 true 면 처리 후 파일을 삭제합니다 (업로드 임시 파일).
+     * documentKey 가 같은 문서는 같은 문서로 취급되어 증분 재인제스천됩니다.
+     */
+    public IngestionJob submit(Path filePath, String filename, String documentKey, boolean deleteAfter) {
+        evictExpiredJobs();
+
+        IngestionJob job = new IngestionJob(filename);
+        jobs.put(job.getId(), job);
+        try {
+            job.setFuture(executor.submit(() -> run(job, filePath, documentKey, deleteAfter)));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            deleteQuietly(filePath, deleteAfter);
+            throw new RagException(RagException.ErrorCode.INGESTION_ERROR,
+                    "Ingestion queue is full, try again later");
+        }
+        log.info("Queued ingestion job {} for {}", job.getId(), filename);
+        return job;
+    }
+
+    public Optional<IngestionJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    public List<IngestionJob> getJobs() {
+        List<IngestionJob> result = new ArrayList<>(jobs.values());
+        result.sort(Comparator.comparing(IngestionJob::getCreatedAt).reversed());
+        return result;
+    }
+
+    public boolean cancel(String jobId) {
+        IngestionJob job = jobs.get(jobId);
+        if (job == null || !job.cancel()) {
+            return false;
+        }
+        log.info("Cancelled ingestion job {}", jobId);
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run(IngestionJob job, Path filePath, String documentKey, boolean deleteAfter) {
+        if (job.isFinished()) {
+            deleteQuietly(filePath, deleteAfter);
+            return;
+        }
+        job.start();
+        try {
+            Document document = ingestionService.ingestDocument(filePath, documentKey, job, null);
+            job.complete(document);
+            if (job.getPhase() == IngestionJob.Phase.CANCELLED) {
+                // 취소 요청이 색인 완료와 겹친 경우. 중복이거나 바뀐 청크가 없으면 기존 문서를 돌려받은 것이므로
+                // 아무것도 지우지 않는다. 그 외에는 문서 ID 가 이전 버전과 같을 수 있어 이 작업이 쓴 청크만 지운다
+                if (isUnchanged(document)) {
+                    log.info("Ingestion job {} cancelled after resolving to existing document {}, nothing to clean up",
+                            job.getId(), document.getId());
+                    return;
+                }
+                ingestionService.deleteChunks(job.writtenChunkIds());
+                return;
+            }
+            log.info("Ingestion job {} completed: {} chunks indexed", job.getId(), job.getChunksIndexed());
+        } catch (Exception e) {
+            if (job.getPhase() == IngestionJob.Phase.CANCELLED) {
+                // 부분적으로 색인된 청크 정리. 이전 버전의 청크와 레지스트리 기록은 건드리지 않는다
+                ingestionService.deleteChunks(job.writtenChunkIds());
+                log.info("Ingestion job {} stopped after cancellation", job.getId());
+            } else {
+                job.fail(e.getMessage());
+                log.error("Ingestion job {} failed", job.getId(), e);
+            }
+        } finally {
+            deleteQuietly(filePath, deleteAfter);
+        }
+    }
+
+    private static boolean isUnchanged(Document document) {
+        Map<String, Object> metadata = document.getMetadata();
+        if (metadata == null) {
+            return false;
+        }
+        return Boolean.TRUE.equals(metadata.get("duplicate"))
+                || (Integer.valueOf(0).equals(metadata.get("chunksIndexed"))
+                        && Integer.valueOf(0).equals(metadata.get("chunksDeleted")));
+    }
+
+    private void evictExpiredJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(retentionMinutes);
+        jobs.values().removeIf(job -> job.isFinished()
+                && job.getFinishedAt() != null
+                && job.getFinishedAt().isBefore(cutoff));
+    }
+
+    private static void deleteQuietly(Path filePath, boolean deleteAfter) {
+        if (!deleteAfter) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(filePath);
+        } catch (IOException e) {
+            log.warn("Failed to delete temp file {}: {}", filePath, e.getMessage());
+        }
+    }
+}
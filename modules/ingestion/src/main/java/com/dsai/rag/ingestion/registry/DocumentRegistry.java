@@ -0,0 +1,22 @@
+package com.dsai.rag.ingestion.registry;
+
+import com.dsai.rag.model.Document;
+
+import java.util.Optional;
+
+/**
+ * 색인된 문서를 원본 파일 해시(SHA-256)로 기록하는 저장소
+ * 같은 파일이 다시 들어오면 파싱/임베딩 없이 기존 문서 정보를 돌려주기 위해 사용합니다.
+ * 구현체가 없으면 중복 검사 없이 항상 인제스천합니다.
+ */
+public interface DocumentRegistry {
+
+    Optional<Document> findByFileHash(String fileHash);
+
+    /**
+     * 문서 ID 기준으로 등록하거나 갱신합니다 (같은 문서가 다른 내용으로 재인제스천된 경우).
+     */
+    void register(Document document, String fileHash, int chunkCount);
+
+    void remove(String documentId);
+}
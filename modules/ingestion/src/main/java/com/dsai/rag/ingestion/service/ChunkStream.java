@@ -0,0 +1,134 @@
+package com.dsai.rag.ingestion.service;
+
+import com.dsai.rag.ingestion.chunking.ChunkingStrategy;
+import com.dsai.rag.model.Chunk;
+import org.apache.commons.codec.binary.Hex;
+
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 파서가 써 주는 텍스트를 윈도우 단위로 모아 청크로 내보내는 Writer
+ * 윈도우가 차면 청킹 전략을 돌려 마지막 청크를 제외한 나머지를 내보내고, 마지막 청크 시작부터 다시 이어 붙입니다.
+ * 마지막 청크가 코드 블록이면 그 블록의 첫 조각(여는 펜스)부터 남겨, 다음 윈도우에서 닫는 펜스를 여는 펜스로 읽지 않게 합니다.
+ * 제목 경로(section)는 윈도우를 넘어 이어지지 않으므로, 윈도우 경계 뒤 청크는 다음 제목이 나올 때까지 section 이 비어 있습니다.
+ * 내보낸 구간은 바로 SHA-256 에 반영하고 버리므로 전체 본문을 메모리에 들고 있지 않습니다.
+ */
+public class ChunkStream extends Writer {
+
+    // 닫히지 않는 코드 블록 때문에 윈도우가 끝없이 커지지 않도록, 이 배수를 넘으면 블록 중간에서라도 자른다
+    private static final int MAX_WINDOW_GROWTH = 4;
+
+    @FunctionalInterface
+    interface SpanSink {
+        void accept(String content, ChunkingStrategy.ChunkSpan span);
+    }
+
+    private final ChunkingStrategy strategy;
+    private final ChunkingStrategy.Options options;
+    private final int windowChars;
+    private final SpanSink sink;
+    private final StringBuilder window;
+    private final MessageDigest digest;
+    private int windowOffset;
+    private int drainThreshold;
+    private boolean closed;
+
+    ChunkStream(ChunkingStrategy strategy, ChunkingStrategy.Options options, int windowChars, SpanSink sink) {
+        this.strategy = strategy;
+        this.options = options;
+        this.windowChars = windowChars;
+        this.sink = sink;
+        this.window = new StringBuilder(Math.min(windowChars, 1 << 16));
+        this.drainThreshold = windowChars;
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) {
+        if (closed) {
+            throw new IllegalStateException("Chunk stream is closed");
+        }
+        window.append(cbuf, off, len);
+        if (window.length() >= drainThreshold) {
+            drain(false);
+        }
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            drain(true);
+            closed = true;
+        }
+    }
+
+    /**
+     * 지금까지 받은 전체 텍스트의 SHA-256. close 이후에 호출해야 합니다.
+     */
+    public String contentHash() {
+        if (!closed) {
+            throw new IllegalStateException("Chunk stream is still open");
+        }
+        return Hex.encodeHexString(digest.digest());
+    }
+
+    /**
+     * 전체 텍스트 길이 (close 이후)
+     */
+    public int length() {
+        return windowOffset + window.length();
+    }
+
+    private void drain(boolean last) {
+        List<ChunkingStrategy.ChunkSpan> spans = new ArrayList<>();
+        strategy.chunk(window, options, spans::add);
+
+        int emit = last ? spans.size() : retainFrom(spans);
+        if (!last && emit == 0) {
+            // 윈도우 안에서 청크 경계를 찾지 못함. 더 모아서 다시 시도
+            drainThreshold = window.length() * 2;
+            return;
+        }
+
+        for (int i = 0; i < emit; i++) {
+            ChunkingStrategy.ChunkSpan span = spans.get(i);
+            sink.accept(window.substring(span.start(), span.end()), new ChunkingStrategy.ChunkSpan(
+                    windowOffset + span.start(), windowOffset + span.end(), span.type(), span.section()));
+        }
+
+        int consumed = last ? window.length() : spans.get(emit).start();
+        digest.update(window.substring(0, consumed).getBytes(StandardCharsets.UTF_8));
+        window.delete(0, consumed);
+        windowOffset += consumed;
+        drainThreshold = Math.max(windowChars, window.length() * 2);
+    }
+
+    /**
+     * 다음 윈도우로 넘길 첫 청크의 인덱스. 보통은 마지막 청크지만, 마지막이 코드 블록 조각이면
+     * 이어지는 CODE 청크들의 처음(여는 펜스가 있는 조각)까지 거슬러 올라갑니다.
+     */
+    private int retainFrom(List<ChunkingStrategy.ChunkSpan> spans) {
+        int from = spans.size() - 1;
+        if (from <= 0 || window.length() >= (long) windowChars * MAX_WINDOW_GROWTH) {
+            return Math.max(from, 0);
+        }
+        while (from > 0 && spans.get(from).type() == Chunk.ChunkType.CODE
+                && spans.get(from - 1).type() == Chunk.ChunkType.CODE) {
+            from--;
+        }
+        return from;
+    }
+}
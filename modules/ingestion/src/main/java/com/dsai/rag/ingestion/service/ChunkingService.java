@@ -1,88 +1,136 @@
 package com.dsai.rag.ingestion.service;
 
+import com.dsai.rag.ingestion.chunking.ChunkingStrategy;
 import com.dsai.rag.model.Chunk;
 import com.dsai.rag.model.Document;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 public class ChunkingService {
     
+    private final Map<String, ChunkingStrategy> strategies;
+    private final Map<Document.DocumentType, ChunkingStrategy> strategyByType = new EnumMap<>(Document.DocumentType.class);
+    private final ChunkingStrategy defaultStrategy;
+    private final int maxTokens;
+    private final int overlapTokens;
+    private final int streamWindowChars;
+    
+    /**
+     * @param strategyMapping "MARKDOWN=markdown,TXT=structured" 형식의 문서 타입별 전략 이름
+     */
+    public ChunkingService(
+            List<ChunkingStrategy> strategies,
+            @Value("${ingestion.chunking.default-strategy:sentence}") String defaultStrategy,
+            @Value("${ingestion.chunking.strategies:MARKDOWN=markdown,JSON=token,XML=token}") String strategyMapping,
+            @Value("${ingestion.chunking.max-tokens:256}") int maxTokens,
+            @Value("${ingestion.chunking.overlap-tokens:32}") int overlapTokens,
+            @Value("${ingestion.streaming.window-chars:1000000}") int streamWindowChars) {
+        this.strategies = strategies.stream()
+                .collect(Collectors.toMap(ChunkingStrategy::name, Function.identity()));
+        this.defaultStrategy = strategy(defaultStrategy);
+        this.maxTokens = maxTokens;
+        this.overlapTokens = overlapTokens;
+        this.streamWindowChars = Math.max(4096, streamWindowChars);
+        
+        for (String entry : strategyMapping.split(",")) {
+            String[] pair = entry.split("=");
+            if (pair.length != 2) {
+                continue;
+            }
+            strategyByType.put(Document.DocumentType.valueOf(pair[0].trim().toUpperCase()), strategy(pair[1].trim()));
+        }
+        
+        log.info("Chunking strategies: default={}, by type={}", this.defaultStrategy.name(),
+                strategyByType.entrySet().stream()
+                        .map(e -> e.getKey() + "=" + e.getValue().name())
+                        .collect(Collectors.joining(", ")));
+    }
+    
     public List<Chunk> chunkDocument(Document document, int chunkSize, int chunkOverlap) {
         List<Chunk> chunks = new ArrayList<>();
+        chunkDocument(document, chunkSize, chunkOverlap, chunks::add);
+        log.debug("Created {} chunks from document {}", chunks.size(), document.getId());
+        return chunks;
+    }
+    
+    /**
+     * 청크를 만드는 즉시 sink 로 흘려보냅니다. 파이프라인 처리에서 전체 청크 목록을 들고 있지 않기 위해 사용합니다.
+     */
+    public void chunkDocument(Document document, int chunkSize, int chunkOverlap, Consumer<Chunk> sink) {
         String content = document.getContent();
         
         if (content == null || content.isEmpty()) {
-            return chunks;
+            return;
         }
         
-        String[] sentences = content.split("(?<=[.!?])\\s+");
-        StringBuilder currentChunk = new StringBuilder();
-        List<String> overlapBuffer = new ArrayList<>();
-        int chunkIndex = 0;
-        int currentPosition = 0;
-        
-        for (String sentence : sentences) {
-            if (currentChunk.length() + sentence.length() > chunkSize && currentChunk.length() > 0) {
-                String chunkContent = currentChunk.toString();
-                Chunk chunk = createChunk(document, chunkContent, chunkIndex++, currentPosition);
-                chunks.add(chunk);
-                
-                currentPosition += chunkContent.length();
-                
-                currentChunk = new StringBuilder();
-                for (String overlap : overlapBuffer) {
-                    currentChunk.append(overlap).append(" ");
-                }
-                
-                overlapBuffer.clear();
-            }
-            
-            currentChunk.append(sentence).append(" ");
-            
-            if (sentence.length() <= chunkOverlap) {
-                overlapBuffer.add(sentence);
-                if (overlapBuffer.stream().mapToInt(String::length).sum() > chunkOverlap) {
-                    overlapBuffer.remove(0);
-                }
-            }
-        }
-        
-        if (currentChunk.length() > 0) {
-            String chunkContent = currentChunk.toString().trim();
-            Chunk chunk = createChunk(document, chunkContent, chunkIndex, currentPosition);
-            chunks.add(chunk);
+        int[] chunkIndex = {0};
+        strategyFor(document).chunk(content, options(chunkSize, chunkOverlap), span -> sink.accept(createChunk(document,
+                content.substring(span.start(), span.end()), chunkIndex[0]++, span)));
+    }
+    
+    /**
+     * 본문을 조각조각 써 넣을 수 있는 스트림을 엽니다. 파서 출력을 바로 연결해 전체 본문을 만들지 않고 청킹할 때 사용하며,
+     * close 할 때 남은 텍스트까지 청크로 내보냅니다. document.content 는 사용하지 않습니다.
+     */
+    public ChunkStream openStream(Document document, int chunkSize, int chunkOverlap, Consumer<Chunk> sink) {
+        int[] chunkIndex = {0};
+        return new ChunkStream(strategyFor(document), options(chunkSize, chunkOverlap), streamWindowChars,
+                (content, span) -> sink.accept(createChunk(document, content, chunkIndex[0]++, span)));
+    }
+    
+    private ChunkingStrategy strategyFor(Document document) {
+        return document.getType() != null
+                ? strategyByType.getOrDefault(document.getType(), defaultStrategy)
+                : defaultStrategy;
+    }
+    
+    private ChunkingStrategy.Options options(int chunkSize, int chunkOverlap) {
+        return new ChunkingStrategy.Options(chunkSize, chunkOverlap, maxTokens, overlapTokens);
+    }
+    
+    private ChunkingStrategy strategy(String name) {
+        ChunkingStrategy strategy = strategies.get(name);
+        if (strategy == null) {
+            throw new IllegalArgumentException("Unknown chunking strategy: " + name + ", available: " + strategies.keySet());
         }
-        
-        log.debug("Created {} chunks from document {}", chunks.size(), document.getId());
-        return chunks;
+        return strategy;
     }
     
-    private Chunk createChunk(Document document, String content, int chunkIndex, int startPosition) {
+    private Chunk createChunk(Document document, String content, int chunkIndex, ChunkingStrategy.ChunkSpan span) {
         String chunkId = document.getId() + "_chunk_" + chunkIndex;
         
+        Map<String, Object> metadata = new HashMap<>(8);
+        metadata.put("source", document.getSource());
+        metadata.put("filename", document.getFilename());
+        metadata.put("documentType", document.getType().toString());
+        metadata.put("chunkIndex", chunkIndex);
+        if (span.section() != null) {
+            metadata.put("section", span.section());
+        }
+        
         return Chunk.builder()
                 .id(chunkId)
                 .documentId(document.getId())
-                .content(content.trim())
+                .content(content)
                 .chunkIndex(chunkIndex)
-                .startPosition(startPosition)
-                .endPosition(startPosition + content.length())
+                .startPosition(span.start())
+                .endPosition(span.end())
                 .contentHash(DigestUtils.md5Hex(content))
-                .type(Chunk.ChunkType.TEXT)
-                .metadata(new HashMap<String, Object>() {{
-                    put("source", document.getSource());
-                    put("filename", document.getFilename());
-                    put("documentType", document.getType().toString());
-                    put("chunkIndex", chunkIndex);
-                }})
+                .type(span.type())
+                .metadata(metadata)
                 .build();
     }
 }
\ No newline at end of file
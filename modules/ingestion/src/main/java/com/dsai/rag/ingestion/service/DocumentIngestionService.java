@@ -1,22 +1,31 @@
 package com.dsai.rag.ingestion.service;
 
-import com.dsai.rag.embeddings.service.EmbeddingService;
+import com.dsai.rag.ingestion.registry.DocumentRegistry;
 import com.dsai.rag.model.Chunk;
 import com.dsai.rag.model.Document;
 import com.dsai.rag.vectorstore.service.VectorStoreService;
-import dev.langchain4j.data.document.DocumentParser;
-import dev.langchain4j.data.document.parser.apache.tika.ApacheTikaDocumentParser;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.apache.tika.sax.BodyContentHandler;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.xml.sax.SAXException;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -24,9 +33,13 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class DocumentIngestionService {
     
-    private final EmbeddingService embeddingService;
     private final VectorStoreService vectorStoreService;
     private final ChunkingService chunkingService;
+    private final IngestionPipeline ingestionPipeline;
+    private final Optional<DocumentRegistry> documentRegistry;
+    
+    @Value("${ingestion.dedup.enabled:true}")
+    private boolean dedupEnabled;
     
     @Value("${ingestion.chunk-size:500}")
     private int chunkSize;
@@ -34,23 +47,57 @@ public class DocumentIngestionService {
     @Value("${ingestion.chunk-overlap:100}")
     private int chunkOverlap;
     
-    @Value("${ingestion.batch-size:10}")
-    private int batchSize;
-    
-    private final DocumentParser documentParser = new ApacheTikaDocumentParser();
+    private final Parser documentParser = new AutoDetectParser();
     
     public Document ingestDocument(Path filePath) {
+        return ingestDocument(filePath, IngestionPipeline.Progress.NONE);
+    }
+    
+    public Document ingestDocument(Path filePath, String documentKey) {
+        return ingestDocument(filePath, documentKey, IngestionPipeline.Progress.NONE, null);
+    }
+    
+    public Document ingestDocument(Path filePath, IngestionPipeline.Progress progress) {
+        return ingestDocument(filePath, progress, null);
+    }
+    
+    public Document ingestDocument(Path filePath, IngestionPipeline.Progress progress, Consumer<List<Chunk>> writer) {
+        return ingestDocument(filePath, null, progress, writer);
+    }
+    
+    /**
+     * documentKey 가 주어지면 문서 식별자를 그 키에서 결정적으로 만들고, 같은 키로 다시 넣으면
+     * 이미 색인된 청크와 contentHash 로 비교해 새로 생기거나 바뀐 청크만 임베딩/색인하고 사라진 청크는 삭제합니다.
+     * 키가 없으면 매번 새 문서로 색인하며 기존 청크는 건드리지 않습니다.
+     *
+     * @param documentKey 호출자가 명시한 문서 식별 키. null 이면 임의의 새 식별자를 사용합니다.
+     * @param writer 임베딩된 청크 배치를 받을 writer. null 이면 파이프라인 기본 색인을 사용합니다.
+     *               writer 가 청크를 버퍼링할 수 있으므로 이때는 레지스트리에 등록하지 않으며,
+     *               호출자가 색인을 확인한 뒤 {@link #registerDocument(Document)} 를 호출해야 합니다.
+     */
+    public Document ingestDocument(Path filePath, String documentKey, IngestionPipeline.Progress progress,
+                                   Consumer<List<Chunk>> writer) {
         try {
             log.info("Starting ingestion for file: {}", filePath);
             
-            String content = parseDocument(filePath);
-            String contentHash = DigestUtils.sha256Hex(content);
+            // 같은 파일이 이미 색인돼 있으면 파싱/임베딩 없이 기존 문서를 돌려준다
+            String fileHash = fileHash(filePath);
+            Optional<Document> duplicate = dedupEnabled
+                    ? documentRegistry.flatMap(registry -> registry.findByFileHash(fileHash))
+                    : Optional.empty();
+            if (duplicate.isPresent()) {
+                Document existingDocument = duplicate.get();
+                existingDocument.getMetadata().put("duplicate", true);
+                progress.parsed(existingDocument.getId());
+                log.info("Skipping ingestion of {}: identical file already indexed as document {}",
+                        filePath, existingDocument.getId());
+                return existingDocument;
+            }
             
+            // 본문은 파싱하면서 바로 청킹하므로 content 는 채우지 않고, contentHash 는 파싱이 끝난 뒤 설정
             Document document = Document.builder()
-                    .id(UUID.randomUUID().toString())
+                    .id(documentKey != null ? documentId(documentKey) : UUID.randomUUID().toString())
                     .filename(filePath.getFileName().toString())
-                    .content(content)
-                    .contentHash(contentHash)
                     .source(filePath.toString())
                     .type(detectDocumentType(filePath))
                     .size(Files.size(filePath))
@@ -59,17 +106,55 @@ public class DocumentIngestionService {
                     .version("1.0")
                     .metadata(new HashMap<>())
                     .build();
+            if (documentKey != null) {
+                document.getMetadata().put("documentKey", documentKey);
+            }
+            document.getMetadata().put("fileHash", fileHash);
+            
+            progress.parsed(document.getId());
             
-            List<Chunk> chunks = chunkingService.chunkDocument(document, chunkSize, chunkOverlap);
+            // 키가 없는 문서는 식별자가 새로 만들어졌으므로 비교할 기존 청크가 없다
+            Map<String, String> existing = documentKey != null
+                    ? vectorStoreService.getChunkHashes(document.getId())
+                    : Map.of();
+            Set<String> retained = new HashSet<>();
+            Map<String, Integer> occurrences = new HashMap<>();
             
-            chunks = embeddingService.embedChunks(chunks);
+            Consumer<Consumer<Chunk>> producer = sink -> {
+                ChunkStream stream = chunkingService.openStream(document, chunkSize, chunkOverlap, chunk -> {
+                    // 같은 내용의 청크가 여러 번 나오면 등장 순서로 구분
+                    int occurrence = occurrences.merge(chunk.getContentHash(), 1, Integer::sum) - 1;
+                    chunk.setId(chunkId(document.getId(), chunk.getContentHash(), occurrence));
+                    if (existing.containsKey(chunk.getId())) {
+                        retained.add(chunk.getId());
+                        return;
+                    }
+                    sink.accept(chunk);
+                });
+                parseDocument(filePath, stream);
+                stream.close();
+                document.setContentHash(stream.contentHash());
+                document.getMetadata().put("contentLength", stream.length());
+            };
+            IngestionPipeline.PipelineResult result = writer != null
+                    ? ingestionPipeline.run(producer, progress, writer)
+                    : ingestionPipeline.run(producer, progress);
             
-            processBatches(chunks);
+            Set<String> removed = new HashSet<>(existing.keySet());
+            removed.removeAll(retained);
+            vectorStoreService.deleteBatch(removed);
             
+            document.getMetadata().put("chunksUnchanged", retained.size());
+            document.getMetadata().put("chunksIndexed", result.indexed());
+            document.getMetadata().put("chunksDeleted", removed.size());
             document.setStatus(Document.DocumentStatus.INDEXED);
             document.setUpdatedAt(LocalDateTime.now());
+            if (writer == null) {
+                registerDocument(document, fileHash, retained.size() + result.indexed());
+            }
             
-            log.info("Successfully ingested document: {} with {} chunks", document.getId(), chunks.size());
+            log.info("Successfully ingested document: {} ({} new or changed chunks, {} unchanged, {} deleted)",
+                    document.getId(), result.indexed(), retained.size(), removed.size());
             return document;
             
         } catch (Exception e) {
@@ -78,10 +163,54 @@ public class DocumentIngestionService {
         }
     }
     
-    private String parseDocument(Path filePath) throws Exception {
+    private static String documentId(String documentKey) {
+        return UUID.nameUUIDFromBytes(documentKey.getBytes(StandardCharsets.UTF_8)).toString();
+    }
+    
+    private static String chunkId(String documentId, String contentHash, int occurrence) {
+        return documentId + "_" + contentHash + (occurrence > 0 ? "_" + occurrence : "");
+    }
+    
+    /**
+     * 외부 writer 로 색인한 문서를, 그 청크가 실제로 색인된 뒤에 레지스트리에 등록합니다.
+     */
+    public void registerDocument(Document document) {
+        Map<String, Object> metadata = document.getMetadata();
+        if (Boolean.TRUE.equals(metadata.get("duplicate"))) {
+            // 중복으로 건너뛴 문서는 이미 등록돼 있다
+            return;
+        }
+        int chunkCount = (Integer) metadata.get("chunksUnchanged") + (Integer) metadata.get("chunksIndexed");
+        registerDocument(document, (String) metadata.get("fileHash"), chunkCount);
+    }
+    
+    /**
+     * 레지스트리 기록 실패는 색인 결과에 영향을 주지 않도록 로그만 남긴다
+     */
+    private void registerDocument(Document document, String fileHash, int chunkCount) {
+        documentRegistry.ifPresent(registry -> {
+            try {
+                registry.register(document, fileHash, chunkCount);
+            } catch (Exception e) {
+                log.warn("Failed to register document {} in registry: {}", document.getId(), e.getMessage());
+            }
+        });
+    }
+    
+    private static String fileHash(Path filePath) throws IOException {
+        try (InputStream inputStream = Files.newInputStream(filePath)) {
+            return DigestUtils.sha256Hex(inputStream);
+        }
+    }
+    
+    /**
+     * Tika SAX 파싱 결과를 문자열로 모으지 않고 writer 로 바로 흘려보냅니다.
+     */
+    private void parseDocument(Path filePath, Writer writer) {
         try (InputStream inputStream = Files.newInputStream(filePath)) {
-            dev.langchain4j.data.document.Document doc = documentParser.parse(inputStream);
-            return doc.text();
+            documentParser.parse(inputStream, new BodyContentHandler(writer), new Metadata(), new ParseContext());
+        } catch (IOException | SAXException | TikaException e) {
+            throw new RuntimeException("Failed to parse document: " + filePath, e);
         }
     }
     
@@ -97,17 +226,22 @@ public class DocumentIngestionService {
         return Document.DocumentType.TXT;
     }
     
-    private void processBatches(List<Chunk> chunks) {
-        for (int i = 0; i < chunks.size(); i += batchSize) {
-            int end = Math.min(i + batchSize, chunks.size());
-            List<Chunk> batch = chunks.subList(i, end);
-            vectorStoreService.upsertBatch(batch);
-            log.debug("Processed batch {}/{}", i/batchSize + 1, (chunks.size() + batchSize - 1)/batchSize);
+    /**
+     * 지정한 청크만 지웁니다. 문서의 다른 청크와 레지스트리 기록은 그대로 둡니다 (중단된 작업 정리용).
+     */
+    public void deleteChunks(Collection<String> chunkIds) {
+        if (chunkIds.isEmpty()) {
+            return;
         }
+        // 아직 bulk 버퍼에 남은 쓰기를 먼저 보내야 삭제 뒤에 다시 색인되지 않는다
+        vectorStoreService.flush();
+        vectorStoreService.deleteBatch(chunkIds);
+        log.info("Deleted {} chunks written by an interrupted ingestion", chunkIds.size());
     }
     
     public void deleteDocument(String documentId) {
         vectorStoreService.deleteByDocumentId(documentId);
+        documentRegistry.ifPresent(registry -> registry.remove(documentId));
         log.info("Deleted all chunks for document: {}", documentId);
     }
 }
\ No newline at end of file
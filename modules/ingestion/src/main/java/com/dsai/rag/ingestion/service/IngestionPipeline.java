@@ -0,0 +1,216 @@
+package com.dsai.rag.ingestion.service;
+
+import com.dsai.rag.embeddings.service.EmbeddingService;
+import com.dsai.rag.model.Chunk;
+import com.dsai.rag.vectorstore.service.VectorStoreService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * chunk → embed → index 단계를 제한된 큐로 연결한 스트리밍 인제스천 파이프라인
+ * 청커가 만든 청크는 배치 단위로 바로 임베딩 단계로 넘어가고, 임베딩이 끝난 배치는 곧바로 색인되므로
+ * 문서 크기와 상관없이 큐 용량만큼의 청크만 메모리에 머뭅니다.
+ */
+@Slf4j
+@Service
+public class IngestionPipeline {
+
+    private static final List<Chunk> END = new ArrayList<>();
+
+    private final EmbeddingService embeddingService;
+    private final VectorStoreService vectorStoreService;
+    private final int embedBatchSize;
+    private final int queueCapacity;
+    private final int embedWorkers;
+
+    public IngestionPipeline(
+            EmbeddingService embeddingService,
+            VectorStoreService vectorStoreService,
+            @Value("${ingestion.pipeline.embed-batch-size:64}") int embedBatchSize,
+            @Value("${ingestion.pipeline.queue-capacity:4}") int queueCapacity,
+            @Value("${ingestion.pipeline.embed-workers:2}") int embedWorkers) {
+        this.embeddingService = embeddingService;
+        this.vectorStoreService = vectorStoreService;
+        this.embedBatchSize = Math.max(1, embedBatchSize);
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.embedWorkers = Math.max(1, embedWorkers);
+    }
+
+    public record PipelineResult(int chunks, int embedded, int indexed) {}
+
+    /**
+     * 진행 상황 콜백. 각 값은 지금까지의 누적 청크 수입니다.
+     * writing 은 배치를 색인 단계로 넘기기 직전에 호출되므로, 중단 시 이 작업이 쓴 청크만 골라 지울 수 있습니다.
+     */
+    public interface Progress {
+        Progress NONE = new Progress() {};
+
+        default void parsed(String documentId) {}
+        default void chunked(int chunks) {}
+        default void embedded(int chunks) {}
+        default void indexed(int chunks) {}
+        default void writing(List<Chunk> batch) {}
+    }
+
+    public PipelineResult run(Consumer<Consumer<Chunk>> producer) {
+        return run(producer, Progress.NONE);
+    }
+
+    /**
+     * 기본 색인은 upsertBatchAsync 로 넘기고 기다리지 않으므로, 색인 단계는 저장소의 bulk 처리량에 맞춰서만 대기합니다.
+     */
+    public PipelineResult run(Consumer<Consumer<Chunk>> producer, Progress progress) {
+        return runAsync(producer, progress, vectorStoreService::upsertBatchAsync);
+    }
+
+    /**
+     * producer 는 전달받은 sink 로 청크를 하나씩 흘려보내야 합니다.
+     * writer 는 임베딩이 끝난 배치를 동기적으로 색인합니다.
+     */
+    public PipelineResult run(Consumer<Consumer<Chunk>> producer, Progress progress, Consumer<List<Chunk>> writer) {
+        return runAsync(producer, progress, batch -> {
+            writer.accept(batch);
+            return CompletableFuture.completedFuture(null);
+        });
+    }
+
+    private PipelineResult runAsync(Consumer<Consumer<Chunk>> producer, Progress progress,
+                                    Function<List<Chunk>, CompletableFuture<Void>> writer) {
+        BlockingQueue<List<Chunk>> embedQueue = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<List<Chunk>> indexQueue = new ArrayBlockingQueue<>(queueCapacity);
+        AtomicInteger produced = new AtomicInteger();
+        AtomicInteger embedded = new AtomicInteger();
+        AtomicInteger indexed = new AtomicInteger();
+        AtomicInteger activeEmbedWorkers = new AtomicInteger(embedWorkers);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> stages = new ArrayList<>();
+
+            stages.add(submit(executor, failure, () -> {
+                List<Chunk> batch = new ArrayList<>(embedBatchSize);
+                producer.accept(chunk -> {
+                    batch.add(chunk);
+                    progress.chunked(produced.incrementAndGet());
+                    if (batch.size() >= embedBatchSize) {
+                        put(embedQueue, new ArrayList<>(batch));
+                        batch.clear();
+                    }
+                });
+                if (!batch.isEmpty()) {
+                    put(embedQueue, new ArrayList<>(batch));
+                }
+                put(embedQueue, END);
+                return null;
+            }));
+
+            for (int i = 0; i < embedWorkers; i++) {
+                stages.add(submit(executor, failure, () -> {
+                    try {
+                        while (true) {
+                            List<Chunk> batch = embedQueue.take();
+                            if (batch == END) {
+                                embedQueue.put(END);
+                                break;
+                            }
+                            embeddingService.embedChunks(batch);
+                            progress.embedded(embedded.addAndGet(batch.size()));
+                            indexQueue.put(batch);
+                        }
+                    } finally {
+                        if (activeEmbedWorkers.decrementAndGet() == 0) {
+                            indexQueue.put(END);
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            stages.add(submit(executor, failure, () -> {
+                List<CompletableFuture<Void>> writes = new ArrayList<>();
+                while (true) {
+                    List<Chunk> batch = indexQueue.take();
+                    if (batch == END) {
+                        vectorStoreService.flush();
+                        break;
+                    }
+                    progress.writing(batch);
+                    writes.add(writer.apply(batch)
+                            .thenRun(() -> progress.indexed(indexed.addAndGet(batch.size()))));
+                }
+                try {
+                    CompletableFuture.allOf(writes.toArray(CompletableFuture[]::new)).join();
+                } catch (CompletionException e) {
+                    throw e.getCause() instanceof Exception cause ? cause : e;
+                }
+                return null;
+            }));
+
+            awaitAll(stages, failure, executor);
+        }
+
+        log.debug("Pipeline finished: {} chunks, {} embedded, {} indexed", produced.get(), embedded.get(), indexed.get());
+        return new PipelineResult(produced.get(), embedded.get(), indexed.get());
+    }
+
+    /**
+     * 한 단계가 실패하면 나머지 단계(큐에서 대기 중인 스레드 포함)를 모두 중단시켜 교착을 막습니다.
+     */
+    private static Future<?> submit(ExecutorService executor, AtomicReference<Throwable> failure, Callable<Void> stage) {
+        return executor.submit(() -> {
+            try {
+                return stage.call();
+            } catch (Throwable t) {
+                if (failure.compareAndSet(null, t)) {
+                    executor.shutdownNow();
+                }
+                throw t;
+            }
+        });
+    }
+
+    private static void awaitAll(List<Future<?>> stages, AtomicReference<Throwable> failure, ExecutorService executor) {
+        try {
+            for (Future<?> stage : stages) {
+                stage.get();
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = failure.get() != null ? failure.get() : e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException("Ingestion pipeline failed", cause);
+        } catch (InterruptedException e) {
+            // 호출 스레드가 중단(작업 취소)되면 모든 단계를 멈춘다
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Ingestion pipeline interrupted", e);
+        }
+    }
+
+    private static void put(BlockingQueue<List<Chunk>> queue, List<Chunk> batch) {
+        try {
+            queue.put(batch);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Ingestion pipeline interrupted", e);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.dsai.rag.ingestion.batch;
+
+import com.dsai.rag.model.Chunk;
+import com.dsai.rag.vectorstore.service.VectorStoreService;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class CoalescingChunkWriterTest {
+
+    @Test
+    void buffersUntilFlushSize() {
+        VectorStoreService store = mock(VectorStoreService.class);
+        CoalescingChunkWriter writer = new CoalescingChunkWriter(store, 3);
+
+        writer.accept(List.of(chunk("a", 0), chunk("a", 1)));
+        verify(store, never()).upsertBatch(argThat(chunks -> true));
+
+        writer.accept(List.of(chunk("b", 0)));
+        verify(store).upsertBatch(argThat(chunks -> chunks.size() == 3));
+        assertThat(writer.getBulkRequests()).isEqualTo(1);
+    }
+
+    @Test
+    void attributesFailedBulkRequestToDocumentsInTheBuffer() {
+        VectorStoreService store = mock(VectorStoreService.class);
+        doThrow(new RuntimeException("bulk rejected")).when(store)
+                .upsertBatch(argThat(chunks -> chunks.stream().anyMatch(chunk -> chunk.getDocumentId().equals("a"))));
+        CoalescingChunkWriter writer = new CoalescingChunkWriter(store, 2);
+
+        // b 가 flush 를 일으키지만 실패는 버퍼에 있던 a, b 모두의 것
+        writer.accept(List.of(chunk("a", 0)));
+        writer.accept(List.of(chunk("b", 0)));
+        writer.accept(List.of(chunk("c", 0)));
+        writer.flush();
+
+        assertThat(writer.getFailure("a")).hasValueSatisfying(e -> assertThat(e).hasMessage("bulk rejected"));
+        assertThat(writer.getFailure("b")).isPresent();
+        assertThat(writer.getFailure("c")).isEmpty();
+    }
+
+    private static Chunk chunk(String documentId, int index) {
+        return Chunk.builder()
+                .id(documentId + "_" + index)
+                .documentId(documentId)
+                .content("chunk " + index)
+                .build();
+    }
+}
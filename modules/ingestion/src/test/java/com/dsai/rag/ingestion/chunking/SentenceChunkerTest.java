@@ -0,0 +1,79 @@
+package com.dsai.rag.ingestion.chunking;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SentenceChunkerTest {
+
+    private static final String TEXT =
+            "First sentence here. Second one is here! Third sentence? Fourth and final sentence.";
+
+    @Test
+    void splitsOnSentenceBoundaries() {
+        assertThat(split(TEXT, 45, 0)).containsExactly(
+                "First sentence here. Second one is here!",
+                "Third sentence? Fourth and final sentence.");
+    }
+
+    @Test
+    void keepsWholeTextWhenItFits() {
+        assertThat(split(TEXT, 1000, 0)).containsExactly(TEXT);
+    }
+
+    @Test
+    void overlapRepeatsTrailingSentencesOfPreviousChunk() {
+        assertThat(split(TEXT, 45, 25)).containsExactly(
+                "First sentence here. Second one is here!",
+                "Second one is here! Third sentence?",
+                "Third sentence? Fourth and final sentence.");
+    }
+
+    @Test
+    void splitsLongSentenceAtWordBoundaries() {
+        List<String> chunks = split("alpha beta gamma delta epsilon zeta eta theta", 12, 0);
+
+        assertThat(chunks).containsExactly("alpha beta", "gamma delta", "epsilon zeta", "eta theta");
+        assertThat(chunks).allSatisfy(chunk -> assertThat(chunk.length()).isLessThanOrEqualTo(12));
+    }
+
+    @Test
+    void emitsNothingForBlankText() {
+        assertThat(split("   \n\t ", 10, 0)).isEmpty();
+    }
+
+    @Test
+    void reportsOffsetsWithinRequestedRange() {
+        List<int[]> ranges = new ArrayList<>();
+        SentenceChunker.split(TEXT, 21, 56, 100, 0, SentenceChunker.Measure.CHARS,
+                (start, end) -> ranges.add(new int[]{start, end}));
+
+        assertThat(ranges).hasSize(1);
+        assertThat(TEXT.substring(ranges.get(0)[0], ranges.get(0)[1]))
+                .isEqualTo("Second one is here! Third sentence?");
+    }
+
+    @Test
+    void chunksNeverStartOrEndWithWhitespace() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            text.append("Sentence number ").append(i).append(" is here.  \n ");
+        }
+
+        List<String> chunks = split(text.toString(), 80, 30);
+
+        assertThat(chunks).isNotEmpty().allSatisfy(chunk -> {
+            assertThat(chunk).isEqualTo(chunk.strip());
+            assertThat(chunk.length()).isLessThanOrEqualTo(80);
+        });
+    }
+
+    private static List<String> split(String text, int chunkSize, int chunkOverlap) {
+        List<String> chunks = new ArrayList<>();
+        SentenceChunker.split(text, chunkSize, chunkOverlap, (start, end) -> chunks.add(text.substring(start, end)));
+        return chunks;
+    }
+}
@@ -0,0 +1,69 @@
+package com.dsai.rag.ingestion.job;
+
+import com.dsai.rag.common.exception.RagException;
+import com.dsai.rag.ingestion.service.DocumentIngestionService;
+import com.dsai.rag.model.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IngestionJobServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private IngestionJobService jobService;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (jobService != null) {
+            jobService.shutdown();
+        }
+    }
+
+    @Test
+    void rejectsSubmissionWhenQueueIsFull() throws Exception {
+        DocumentIngestionService ingestionService = mock(DocumentIngestionService.class);
+        CountDownLatch started = new CountDownLatch(1);
+        when(ingestionService.ingestDocument(any(Path.class), isNull(), any(), isNull())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return Document.builder().id("doc").metadata(new HashMap<>()).build();
+        });
+        // 워커 1개, 대기열 1칸
+        jobService = new IngestionJobService(ingestionService, 1, 1, 60);
+
+        IngestionJob running = jobService.submit(upload("a.txt"), "a.txt", null, true);
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        IngestionJob queued = jobService.submit(upload("b.txt"), "b.txt", null, true);
+        Path rejected = upload("c.txt");
+
+        assertThatThrownBy(() -> jobService.submit(rejected, "c.txt", null, true))
+                .isInstanceOf(RagException.class)
+                .hasMessageContaining("queue is full");
+        // 거절된 업로드 파일은 지우고 작업 목록에도 남기지 않는다
+        assertThat(rejected).doesNotExist();
+        assertThat(jobService.getJobs()).extracting(IngestionJob::getId)
+                .containsExactlyInAnyOrder(running.getId(), queued.getId());
+    }
+
+    private Path upload(String name) throws IOException {
+        return Files.writeString(directory.resolve(name), "content of " + name);
+    }
+}
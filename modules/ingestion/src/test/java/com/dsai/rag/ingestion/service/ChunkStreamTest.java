@@ -0,0 +1,114 @@
+package com.dsai.rag.ingestion.service;
+
+import com.dsai.rag.ingestion.chunking.ChunkingStrategy;
+import com.dsai.rag.ingestion.chunking.MarkdownChunkingStrategy;
+import com.dsai.rag.ingestion.chunking.SentenceChunkingStrategy;
+import com.dsai.rag.model.Chunk;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ChunkStreamTest {
+
+    private static final ChunkingStrategy.Options OPTIONS = new ChunkingStrategy.Options(200, 40, 64, 8);
+
+    @Test
+    void streamedChunksMatchWholeTextChunking() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            text.append("This is sentence number ").append(i).append(" of a long document. ");
+        }
+
+        assertStreamMatchesWholeText(new SentenceChunkingStrategy(), text.toString(), 1024, 333);
+    }
+
+    @Test
+    void codeBlockSpanningWindowBoundaryKeepsItsFences() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 30; i++) {
+            text.append("Intro sentence ").append(i).append(" before the code. ");
+        }
+        text.append("\n```java\n");
+        for (int i = 0; i < 200; i++) {
+            text.append("int value").append(i).append(" = compute(").append(i).append(");\n");
+        }
+        text.append("```\n");
+        for (int i = 0; i < 30; i++) {
+            text.append("Closing sentence ").append(i).append(" after the code. ");
+        }
+
+        List<Emitted> streamed = assertStreamMatchesWholeText(new MarkdownChunkingStrategy(), text.toString(), 2048, 500);
+
+        assertThat(streamed).filteredOn(chunk -> chunk.type() == Chunk.ChunkType.CODE)
+                .isNotEmpty()
+                .first()
+                .satisfies(chunk -> assertThat(chunk.content()).startsWith("```java"));
+    }
+
+    @Test
+    void keepsTextWithoutBoundariesUntilClose() throws IOException {
+        String text = "x".repeat(5000);
+
+        List<Emitted> streamed = stream(new SentenceChunkingStrategy(), text, 1024, 100);
+
+        assertThat(streamed).containsExactly(new Emitted(text, 0, 5000, Chunk.ChunkType.TEXT));
+    }
+
+    @Test
+    void hashesAndMeasuresTheWholeText() throws IOException {
+        String text = "Alpha sentence. Beta sentence. Gamma sentence. ".repeat(100);
+        ChunkStream stream = new ChunkStream(new SentenceChunkingStrategy(), OPTIONS, 256, (content, span) -> { });
+
+        stream.write(text);
+        stream.close();
+
+        assertThat(stream.contentHash()).isEqualTo(DigestUtils.sha256Hex(text));
+        assertThat(stream.length()).isEqualTo(text.length());
+    }
+
+    @Test
+    void rejectsHashBeforeCloseAndWritesAfterClose() throws IOException {
+        ChunkStream stream = new ChunkStream(new SentenceChunkingStrategy(), OPTIONS, 256, (content, span) -> { });
+        stream.write("Some text.");
+
+        assertThatThrownBy(stream::contentHash).isInstanceOf(IllegalStateException.class);
+
+        stream.close();
+
+        assertThatThrownBy(() -> stream.write("More text.")).isInstanceOf(IllegalStateException.class);
+    }
+
+    private static List<Emitted> assertStreamMatchesWholeText(ChunkingStrategy strategy, String text,
+                                                              int windowChars, int writeSize) throws IOException {
+        List<Emitted> whole = new ArrayList<>();
+        strategy.chunk(text, OPTIONS, span -> whole.add(
+                new Emitted(text.substring(span.start(), span.end()), span.start(), span.end(), span.type())));
+
+        List<Emitted> streamed = stream(strategy, text, windowChars, writeSize);
+
+        assertThat(streamed).containsExactlyElementsOf(whole);
+        assertThat(streamed).allSatisfy(chunk ->
+                assertThat(text.substring(chunk.start(), chunk.end())).isEqualTo(chunk.content()));
+        return streamed;
+    }
+
+    private static List<Emitted> stream(ChunkingStrategy strategy, String text, int windowChars, int writeSize)
+            throws IOException {
+        List<Emitted> emitted = new ArrayList<>();
+        ChunkStream stream = new ChunkStream(strategy, OPTIONS, windowChars, (content, span) ->
+                emitted.add(new Emitted(content, span.start(), span.end(), span.type())));
+        for (int i = 0; i < text.length(); i += writeSize) {
+            stream.write(text, i, Math.min(writeSize, text.length() - i));
+        }
+        stream.close();
+        return emitted;
+    }
+
+    private record Emitted(String content, int start, int end, Chunk.ChunkType type) {}
+}
@@ -0,0 +1,235 @@
+package com.dsai.rag.ingestion.service;
+
+import com.dsai.rag.embeddings.service.EmbeddingService;
+import com.dsai.rag.ingestion.chunking.SentenceChunkingStrategy;
+import com.dsai.rag.ingestion.registry.DocumentRegistry;
+import com.dsai.rag.model.Chunk;
+import com.dsai.rag.model.Document;
+import com.dsai.rag.vectorstore.search.Projection;
+import com.dsai.rag.vectorstore.search.ScoredChunk;
+import com.dsai.rag.vectorstore.service.VectorStoreService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class DocumentIngestionServiceTest {
+
+    private static final String ALPHA = "Alpha sentence opens this document.";
+    private static final String BRAVO = "Bravo sentence follows right after.";
+    private static final String CHARLIE = "Charlie sentence closes the text.";
+    private static final String DELTA = "Delta sentence replaces the middle.";
+
+    @TempDir
+    Path directory;
+
+    private InMemoryVectorStore store;
+    private InMemoryRegistry registry;
+    private DocumentIngestionService service;
+
+    @BeforeEach
+    void setUp() throws ReflectiveOperationException {
+        store = new InMemoryVectorStore();
+        registry = new InMemoryRegistry();
+        ChunkingService chunkingService = new ChunkingService(
+                List.of(new SentenceChunkingStrategy()), "sentence", "", 256, 32, 4096);
+        IngestionPipeline pipeline = new IngestionPipeline(mock(EmbeddingService.class), store, 4, 4, 1);
+        service = new DocumentIngestionService(store, chunkingService, pipeline, Optional.of(registry));
+        // 한 청크에 한 문장만 들어가도록 작게 잡는다
+        setField(service, "chunkSize", 50);
+        setField(service, "chunkOverlap", 0);
+        setField(service, "dedupEnabled", true);
+    }
+
+    @Test
+    void reingestionWithSameKeyIndexesOnlyChangedChunksAndDeletesRemovedOnes() throws IOException {
+        Path file = write("notes.txt", ALPHA, BRAVO, CHARLIE);
+        Document first = service.ingestDocument(file, "notes");
+        assertThat(first.getMetadata()).containsEntry("chunksIndexed", 3).containsEntry("chunksDeleted", 0);
+
+        write("notes.txt", ALPHA, DELTA);
+        Document second = service.ingestDocument(file, "notes");
+
+        assertThat(second.getId()).isEqualTo(first.getId());
+        assertThat(second.getMetadata())
+                .containsEntry("chunksUnchanged", 1)
+                .containsEntry("chunksIndexed", 1)
+                .containsEntry("chunksDeleted", 2);
+        assertThat(store.contents()).containsExactlyInAnyOrder(ALPHA, DELTA);
+        assertThat(store.upserted).isEqualTo(4);
+        assertThat(registry.chunkCounts).containsEntry(first.getId(), 2);
+    }
+
+    @Test
+    void documentsWithoutKeyDoNotTouchEachOther() throws IOException {
+        Document first = service.ingestDocument(write("a.txt", ALPHA, BRAVO));
+        Document second = service.ingestDocument(write("b.txt", ALPHA, CHARLIE));
+
+        assertThat(second.getId()).isNotEqualTo(first.getId());
+        assertThat(store.deleted).isEmpty();
+        assertThat(store.contents()).containsExactlyInAnyOrder(ALPHA, BRAVO, ALPHA, CHARLIE);
+    }
+
+    @Test
+    void identicalFileShortCircuitsToExistingDocument() throws IOException {
+        Document first = service.ingestDocument(write("a.txt", ALPHA, BRAVO));
+        int upserted = store.upserted;
+        List<String> parsed = new ArrayList<>();
+
+        Document second = service.ingestDocument(write("copy.txt", ALPHA, BRAVO), null, new IngestionPipeline.Progress() {
+            @Override
+            public void parsed(String documentId) {
+                parsed.add(documentId);
+            }
+        }, null);
+
+        assertThat(second.getId()).isEqualTo(first.getId());
+        assertThat(second.getMetadata()).containsEntry("duplicate", true);
+        assertThat(parsed).containsExactly(first.getId());
+        // 파싱, 임베딩, 색인 없이 기존 문서를 돌려준다
+        assertThat(store.upserted).isEqualTo(upserted);
+        assertThat(store.contents()).hasSize(2);
+    }
+
+    @Test
+    void dedupDisabledIngestsIdenticalFileAgain() throws IOException, ReflectiveOperationException {
+        setField(service, "dedupEnabled", false);
+        Document first = service.ingestDocument(write("a.txt", ALPHA, BRAVO));
+        Document second = service.ingestDocument(write("copy.txt", ALPHA, BRAVO));
+
+        assertThat(second.getId()).isNotEqualTo(first.getId());
+        assertThat(second.getMetadata()).doesNotContainKey("duplicate");
+        assertThat(store.contents()).hasSize(4);
+    }
+
+    private Path write(String name, String... sentences) throws IOException {
+        return Files.writeString(directory.resolve(name), String.join(" ", sentences));
+    }
+
+    private static void setField(Object target, String name, Object value) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    static class InMemoryVectorStore implements VectorStoreService {
+        final Map<String, Chunk> chunks = new ConcurrentHashMap<>();
+        final List<String> deleted = new ArrayList<>();
+        int upserted;
+
+        List<String> contents() {
+            return chunks.values().stream().map(Chunk::getContent).collect(Collectors.toList());
+        }
+
+        @Override
+        public void upsert(Chunk chunk) {
+            upsertBatch(List.of(chunk));
+        }
+
+        @Override
+        public synchronized void upsertBatch(List<Chunk> batch) {
+            batch.forEach(chunk -> chunks.put(chunk.getId(), chunk));
+            upserted += batch.size();
+        }
+
+        @Override
+        public List<ScoredChunk> search(String query, float[] queryEmbedding, int topK, Double minScore,
+                                        Map<String, Object> filters, Projection projection) {
+            return List.of();
+        }
+
+        @Override
+        public List<ScoredChunk> hybridSearch(String query, float[] queryEmbedding, int topK, Double minScore,
+                                              Map<String, Object> filters, Projection projection) {
+            return List.of();
+        }
+
+        @Override
+        public List<ScoredChunk> lexicalSearch(String query, int topK, Double minScore,
+                                               Map<String, Object> filters, Projection projection) {
+            return List.of();
+        }
+
+        @Override
+        public synchronized void delete(String chunkId) {
+            chunks.remove(chunkId);
+            deleted.add(chunkId);
+        }
+
+        @Override
+        public synchronized void deleteBatch(Collection<String> chunkIds) {
+            chunkIds.forEach(this::delete);
+        }
+
+        @Override
+        public synchronized void deleteByDocumentId(String documentId) {
+            List.copyOf(chunks.values()).stream()
+                    .filter(chunk -> chunk.getDocumentId().equals(documentId))
+                    .forEach(chunk -> delete(chunk.getId()));
+        }
+
+        @Override
+        public Map<String, String> getChunkHashes(String documentId) {
+            return chunks.values().stream()
+                    .filter(chunk -> chunk.getDocumentId().equals(documentId))
+                    .collect(Collectors.toMap(Chunk::getId, Chunk::getContentHash));
+        }
+
+        @Override
+        public boolean exists(String chunkId) {
+            return chunks.containsKey(chunkId);
+        }
+
+        @Override
+        public long count() {
+            return chunks.size();
+        }
+
+        @Override
+        public void createCollection(String collectionName) {
+        }
+
+        @Override
+        public void deleteCollection(String collectionName) {
+            chunks.clear();
+        }
+    }
+
+    static class InMemoryRegistry implements DocumentRegistry {
+        final Map<String, Document> byFileHash = new HashMap<>();
+        final Map<String, Integer> chunkCounts = new HashMap<>();
+
+        @Override
+        public synchronized Optional<Document> findByFileHash(String fileHash) {
+            return Optional.ofNullable(byFileHash.get(fileHash));
+        }
+
+        @Override
+        public synchronized void register(Document document, String fileHash, int chunkCount) {
+            byFileHash.values().removeIf(existing -> existing.getId().equals(document.getId()));
+            byFileHash.put(fileHash, document);
+            chunkCounts.put(document.getId(), chunkCount);
+        }
+
+        @Override
+        public synchronized void remove(String documentId) {
+            byFileHash.values().removeIf(existing -> existing.getId().equals(documentId));
+            chunkCounts.remove(documentId);
+        }
+    }
+}
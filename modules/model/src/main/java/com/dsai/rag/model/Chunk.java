@@ -5,7 +5,6 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.util.List;
 import java.util.Map;
 
 @Data
@@ -19,7 +18,7 @@ public class Chunk {
     private Integer chunkIndex;
     private Integer startPosition;
     private Integer endPosition;
-    private List<Float> embedding;
+    private float[] embedding;
     private Map<String, Object> metadata;
     private String contentHash;
     private ChunkType type;
@@ -0,0 +1,54 @@
+package com.dsai.rag.model;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * float[] 임베딩 벡터 유틸리티
+ * 박싱된 List&lt;Float&gt; 를 요구하는 API 와의 경계에서만 사용합니다.
+ */
+public final class Vectors {
+
+    private Vectors() {
+    }
+
+    /**
+     * 복사 없이 float[] 를 읽기 전용 List 로 노출합니다. 원소는 접근 시점에만 박싱됩니다.
+     */
+    public static List<Float> asList(float[] vector) {
+        return new FloatArrayView(vector);
+    }
+
+    public static float[] toArray(List<? extends Number> vector) {
+        if (vector == null) {
+            return null;
+        }
+        if (vector instanceof FloatArrayView view) {
+            return view.array;
+        }
+        float[] result = new float[vector.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = vector.get(i).floatValue();
+        }
+        return result;
+    }
+
+    private static final class FloatArrayView extends AbstractList<Float> implements RandomAccess {
+        private final float[] array;
+
+        private FloatArrayView(float[] array) {
+            this.array = array;
+        }
+
+        @Override
+        public Float get(int index) {
+            return array[index];
+        }
+
+        @Override
+        public int size() {
+            return array.length;
+        }
+    }
+}
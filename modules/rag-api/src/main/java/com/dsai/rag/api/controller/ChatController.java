@@ -1,7 +1,9 @@
 package com.dsai.rag.api.controller;
 
+import com.dsai.rag.api.util.SseStreams;
 import com.dsai.rag.common.dto.BaseResponse;
 import com.dsai.rag.core.service.ChatService;
+import com.dsai.rag.core.session.SessionStore;
 import com.dsai.rag.model.ChatMessage;
 import com.dsai.rag.model.ChatRequest;
 import com.dsai.rag.model.ChatResponse;
@@ -9,8 +11,11 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
 import java.util.List;
 
@@ -45,6 +50,14 @@ public class ChatController {
         }
     }
     
+    @PostMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "AI와 스트리밍 대화", description = "응답을 토큰 단위 SSE 이벤트(sources, token, done)로 전송합니다")
+    public Flux<ServerSentEvent<Object>> chatStream(@RequestBody ChatRequest request) {
+        logger.info("Streaming chat request received - sessionId: {}, message: {}", 
+                   request.getSessionId(), request.getMessage());
+        return SseStreams.<ChatResponse>stream(listener -> chatService.chatStream(request, listener));
+    }
+    
     @GetMapping("/history/{sessionId}")
     @Operation(summary = "대화 기록 조회", description = "특정 세션의 대화 기록을 조회합니다")
     public ResponseEntity<BaseResponse<List<ChatMessage>>> getChatHistory(
@@ -94,6 +107,12 @@ public class ChatController {
         }
     }
     
+    @GetMapping("/sessions/stats")
+    @Operation(summary = "세션 저장소 통계", description = "메모리에 있는 세션 수와 축출 / 만료 / 디스크 저장 / 복원 횟수를 조회합니다")
+    public ResponseEntity<BaseResponse<SessionStore.SessionStats>> getSessionStats() {
+        return ResponseEntity.ok(BaseResponse.success(chatService.getSessionStats()));
+    }
+    
     @PostMapping("/new")
     @Operation(summary = "새 대화 시작", description = "새로운 세션 ID로 대화를 시작합니다")
     public ResponseEntity<BaseResponse<String>> startNewChat() {
@@ -1,12 +1,19 @@
 package com.dsai.rag.api.controller;
 
 import com.dsai.rag.common.dto.BaseResponse;
+import com.dsai.rag.common.exception.RagException;
+import com.dsai.rag.embeddings.cache.EmbeddingCache;
+import com.dsai.rag.ingestion.batch.BatchIngestionResult;
+import com.dsai.rag.ingestion.batch.BatchIngestionService;
+import com.dsai.rag.ingestion.job.IngestionJob;
+import com.dsai.rag.ingestion.job.IngestionJobService;
 import com.dsai.rag.ingestion.service.DocumentIngestionService;
 import com.dsai.rag.model.Document;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -15,6 +22,7 @@ import org.springframework.web.multipart.MultipartFile;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.util.List;
 
 @Slf4j
 @RestController
@@ -24,11 +32,15 @@ import java.nio.file.StandardCopyOption;
 public class IngestionController {
     
     private final DocumentIngestionService ingestionService;
+    private final IngestionJobService ingestionJobService;
+    private final BatchIngestionService batchIngestionService;
+    private final EmbeddingCache embeddingCache;
     
     @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @Operation(summary = "Upload and ingest document", description = "Upload a document for processing and indexing")
     public ResponseEntity<BaseResponse<Document>> uploadDocument(
-            @RequestParam("file") MultipartFile file) {
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) String documentKey) {
         
         log.info("Received file for ingestion: {}", file.getOriginalFilename());
         
@@ -36,7 +48,8 @@ public class IngestionController {
             Path tempFile = Files.createTempFile("upload-", file.getOriginalFilename());
             Files.copy(file.getInputStream(), tempFile, StandardCopyOption.REPLACE_EXISTING);
             
-            Document document = ingestionService.ingestDocument(tempFile);
+            // 파일명이 같은 다른 문서를 덮어쓰지 않도록, 증분 재인제스천은 documentKey 를 명시한 경우에만 한다
+            Document document = ingestionService.ingestDocument(tempFile, documentKey);
             
             Files.deleteIfExists(tempFile);
             
@@ -49,10 +62,102 @@ public class IngestionController {
         }
     }
     
+    @PostMapping(value = "/jobs", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "Upload document asynchronously", description = "Queue a document for ingestion and return the job immediately")
+    public ResponseEntity<BaseResponse<IngestionJob>> submitJob(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) String documentKey) {
+        
+        log.info("Received file for async ingestion: {}", file.getOriginalFilename());
+        
+        try {
+            // 요청이 끝나면 multipart 임시 파일이 지워지므로 작업용 파일로 옮겨 둔다
+            Path tempFile = Files.createTempFile("upload-", file.getOriginalFilename());
+            file.transferTo(tempFile);
+            
+            IngestionJob job = ingestionJobService.submit(tempFile, file.getOriginalFilename(), documentKey, true);
+            return ResponseEntity.accepted().body(BaseResponse.success(job));
+            
+        } catch (RagException e) {
+            log.warn("Ingestion job rejected: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(BaseResponse.error("INGESTION_QUEUE_FULL", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Failed to queue ingestion job", e);
+            return ResponseEntity.internalServerError()
+                    .body(BaseResponse.error("INGESTION_FAILED", e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/jobs/{jobId}")
+    @Operation(summary = "Get ingestion job status", description = "Phase and chunk progress of an ingestion job")
+    public ResponseEntity<BaseResponse<IngestionJob>> getJob(@PathVariable String jobId) {
+        return ingestionJobService.getJob(jobId)
+                .map(job -> ResponseEntity.ok(BaseResponse.success(job)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(BaseResponse.error("JOB_NOT_FOUND", "Ingestion job not found: " + jobId)));
+    }
+    
+    @GetMapping("/jobs")
+    @Operation(summary = "List ingestion jobs", description = "Recent ingestion jobs, newest first")
+    public ResponseEntity<BaseResponse<List<IngestionJob>>> getJobs() {
+        return ResponseEntity.ok(BaseResponse.success(ingestionJobService.getJobs()));
+    }
+    
+    @DeleteMapping("/jobs/{jobId}")
+    @Operation(summary = "Cancel ingestion job", description = "Cancel a queued or running ingestion job")
+    public ResponseEntity<BaseResponse<String>> cancelJob(@PathVariable String jobId) {
+        if (!ingestionJobService.cancel(jobId)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(BaseResponse.error("JOB_NOT_CANCELLABLE", "Job not found or already finished: " + jobId));
+        }
+        return ResponseEntity.ok(BaseResponse.success("Ingestion job cancelled"));
+    }
+    
+    @PostMapping("/batch/directory")
+    @Operation(summary = "Ingest local directory", description = "Ingest all supported documents under a local directory in parallel")
+    public ResponseEntity<BaseResponse<BatchIngestionResult>> ingestDirectory(
+            @RequestParam("path") String directoryPath,
+            @RequestParam(defaultValue = "true") boolean recursive) {
+        
+        log.info("Batch ingesting directory: {} (recursive={})", directoryPath, recursive);
+        
+        Path path = Path.of(directoryPath);
+        if (!Files.isDirectory(path)) {
+            return ResponseEntity.badRequest()
+                    .body(BaseResponse.error("DIRECTORY_NOT_FOUND", "Directory does not exist: " + directoryPath));
+        }
+        
+        try {
+            return ResponseEntity.ok(BaseResponse.success(batchIngestionService.ingestDirectory(path, recursive)));
+        } catch (Exception e) {
+            log.error("Batch ingestion failed", e);
+            return ResponseEntity.internalServerError()
+                    .body(BaseResponse.error("INGESTION_FAILED", e.getMessage()));
+        }
+    }
+    
+    @PostMapping(value = "/batch/zip", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "Upload and ingest ZIP archive", description = "Extract a ZIP archive and ingest all supported documents in parallel")
+    public ResponseEntity<BaseResponse<BatchIngestionResult>> ingestZip(
+            @RequestParam("file") MultipartFile file) {
+        
+        log.info("Received ZIP archive for batch ingestion: {}", file.getOriginalFilename());
+        
+        try {
+            return ResponseEntity.ok(BaseResponse.success(batchIngestionService.ingestZip(file.getInputStream())));
+        } catch (Exception e) {
+            log.error("Batch ingestion failed", e);
+            return ResponseEntity.internalServerError()
+                    .body(BaseResponse.error("INGESTION_FAILED", e.getMessage()));
+        }
+    }
+    
     @PostMapping("/file")
     @Operation(summary = "Ingest local file", description = "Ingest a document from local file path")
     public ResponseEntity<BaseResponse<Document>> ingestFile(
-            @RequestParam("path") String filePath) {
+            @RequestParam("path") String filePath,
+            @RequestParam(required = false) String documentKey) {
         
         log.info("Ingesting file from path: {}", filePath);
         
@@ -63,7 +168,9 @@ public class IngestionController {
                         .body(BaseResponse.error("FILE_NOT_FOUND", "File does not exist: " + filePath));
             }
             
-            Document document = ingestionService.ingestDocument(path);
+            // 서버 로컬 경로는 같은 파일을 가리키므로 키가 없으면 경로를 문서 식별 키로 사용
+            Document document = ingestionService.ingestDocument(path,
+                    documentKey != null ? documentKey : path.toAbsolutePath().normalize().toString());
             return ResponseEntity.ok(BaseResponse.success(document));
             
         } catch (Exception e) {
@@ -73,6 +180,12 @@ public class IngestionController {
         }
     }
     
+    @GetMapping("/embedding-cache/stats")
+    @Operation(summary = "Embedding cache stats", description = "Hit/miss statistics of the chunk embedding cache used during ingestion")
+    public ResponseEntity<BaseResponse<EmbeddingCache.CacheStats>> getEmbeddingCacheStats() {
+        return ResponseEntity.ok(BaseResponse.success(embeddingCache.getStats()));
+    }
+    
     @DeleteMapping("/{documentId}")
     @Operation(summary = "Delete document", description = "Delete a document and all its chunks from the index")
     public ResponseEntity<BaseResponse<String>> deleteDocument(
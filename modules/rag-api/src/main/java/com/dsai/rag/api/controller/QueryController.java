@@ -1,15 +1,25 @@
 package com.dsai.rag.api.controller;
 
+import com.dsai.rag.api.util.SseStreams;
 import com.dsai.rag.common.dto.BaseResponse;
+import com.dsai.rag.core.cache.QueryCache;
 import com.dsai.rag.core.service.RagOrchestrator;
+import com.dsai.rag.model.Chunk;
 import com.dsai.rag.model.QueryRequest;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Slf4j
 @RestController
@@ -37,9 +47,66 @@ public class QueryController {
         }
     }
     
+    @PostMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream RAG query", description = "Stream the answer token by token as server-sent events (sources, token, done)")
+    public Flux<ServerSentEvent<Object>> queryStream(@Valid @RequestBody QueryRequest request) {
+        log.info("Received streaming query: {}", request.getQuery());
+        return SseStreams.<RagOrchestrator.RagResponse>stream(listener -> ragOrchestrator.queryStream(request, listener));
+    }
+    
+    @PostMapping("/retrieve")
+    @Operation(summary = "Retrieve only", description = "Run embedding and search without LLM generation, for inspecting retrieval quality")
+    public ResponseEntity<BaseResponse<Map<String, Object>>> retrieve(@Valid @RequestBody QueryRequest request) {
+        log.info("Received retrieval-only query: {}", request.getQuery());
+        
+        try {
+            RagOrchestrator.RetrievalResult retrieval = ragOrchestrator.retrieve(request);
+            
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("query", request.getQuery());
+            result.put("strategy", request.getStrategy() != null ? request.getStrategy() : QueryRequest.SearchStrategy.VECTOR_ONLY);
+            result.put("embeddingTimeMs", retrieval.embeddingTime());
+            result.put("searchTimeMs", retrieval.searchTime());
+            result.put("results", retrieval.results().stream()
+                    .map(scored -> toResultView(scored.chunk(), scored.score()))
+                    .collect(Collectors.toList()));
+            result.put("sources", retrieval.sources());
+            result.put("context", retrieval.context());
+            return ResponseEntity.ok(BaseResponse.success(result));
+        } catch (Exception e) {
+            log.error("Retrieval failed", e);
+            return ResponseEntity.internalServerError()
+                    .body(BaseResponse.error("RETRIEVAL_FAILED", e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/cache/stats")
+    @Operation(summary = "Query cache stats", description = "Hit/miss statistics of the query embedding and response caches")
+    public ResponseEntity<BaseResponse<Map<String, QueryCache.CacheStats>>> getCacheStats() {
+        return ResponseEntity.ok(BaseResponse.success(ragOrchestrator.getCacheStats()));
+    }
+    
+    @DeleteMapping("/cache")
+    @Operation(summary = "Clear query cache", description = "Invalidate cached query embeddings and responses")
+    public ResponseEntity<BaseResponse<String>> clearCache() {
+        ragOrchestrator.clearCache();
+        return ResponseEntity.ok(BaseResponse.success("Query cache cleared"));
+    }
+    
     @GetMapping("/health")
     @Operation(summary = "Health check", description = "Check if the query service is healthy")
     public ResponseEntity<BaseResponse<String>> health() {
         return ResponseEntity.ok(BaseResponse.success("Query service is healthy"));
     }
+    
+    private static Map<String, Object> toResultView(Chunk chunk, double score) {
+        Map<String, Object> view = new LinkedHashMap<>();
+        view.put("chunkId", chunk.getId());
+        view.put("documentId", chunk.getDocumentId());
+        view.put("score", score);
+        view.put("type", chunk.getType());
+        view.put("metadata", chunk.getMetadata());
+        view.put("content", chunk.getContent());
+        return view;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,65 @@
+package com.dsai.rag.api.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * 색인된 문서 레지스트리. 원본 파일 해시로 중복 업로드를 걸러냅니다.
+ */
+@Entity
+@Table(name = "ingested_documents", indexes = {
+        @Index(name = "idx_ingested_file_hash", columnList = "file_hash", unique = true)
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestedDocument {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "document_id", nullable = false, unique = true, length = 64)
+    private String documentId;
+    
+    @Column(name = "file_hash", nullable = false, length = 64)
+    private String fileHash;
+    
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+    
+    @Column(name = "document_key", length = 1024)
+    private String documentKey;
+    
+    private String filename;
+    
+    @Column(length = 1024)
+    private String source;
+    
+    @Column(name = "document_type", length = 20)
+    private String documentType;
+    
+    private Long size;
+    
+    @Column(name = "chunk_count")
+    private Integer chunkCount;
+    
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+    
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
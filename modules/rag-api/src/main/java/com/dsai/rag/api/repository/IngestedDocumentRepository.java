@@ -0,0 +1,17 @@
+package com.dsai.rag.api.repository;
+
+import com.dsai.rag.api.entity.IngestedDocument;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface IngestedDocumentRepository extends JpaRepository<IngestedDocument, Long> {
+    
+    Optional<IngestedDocument> findByFileHash(String fileHash);
+    
+    Optional<IngestedDocument> findByDocumentId(String documentId);
+    
+    void deleteByDocumentId(String documentId);
+}
@@ -0,0 +1,81 @@
+package com.dsai.rag.api.service;
+
+import com.dsai.rag.api.entity.IngestedDocument;
+import com.dsai.rag.api.repository.IngestedDocumentRepository;
+import com.dsai.rag.ingestion.registry.DocumentRegistry;
+import com.dsai.rag.model.Document;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * MySQL(ingested_documents) 기반 문서 레지스트리
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class JpaDocumentRegistry implements DocumentRegistry {
+    
+    private final IngestedDocumentRepository repository;
+    
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Document> findByFileHash(String fileHash) {
+        return repository.findByFileHash(fileHash).map(this::toDocument);
+    }
+    
+    @Override
+    @Transactional
+    public void register(Document document, String fileHash, int chunkCount) {
+        // 다른 문서가 같은 파일로 먼저 등록된 경우(동시 업로드)는 건너뜀
+        Optional<IngestedDocument> sameFile = repository.findByFileHash(fileHash);
+        if (sameFile.isPresent() && !sameFile.get().getDocumentId().equals(document.getId())) {
+            log.debug("File hash {} already registered to document {}", fileHash, sameFile.get().getDocumentId());
+            return;
+        }
+        
+        IngestedDocument entity = repository.findByDocumentId(document.getId()).orElseGet(IngestedDocument::new);
+        entity.setDocumentId(document.getId());
+        entity.setFileHash(fileHash);
+        entity.setContentHash(document.getContentHash());
+        entity.setDocumentKey(document.getMetadata() != null ? (String) document.getMetadata().get("documentKey") : null);
+        entity.setFilename(document.getFilename());
+        entity.setSource(document.getSource());
+        entity.setDocumentType(document.getType() != null ? document.getType().name() : null);
+        entity.setSize(document.getSize());
+        entity.setChunkCount(chunkCount);
+        repository.save(entity);
+    }
+    
+    @Override
+    @Transactional
+    public void remove(String documentId) {
+        repository.deleteByDocumentId(documentId);
+    }
+    
+    private Document toDocument(IngestedDocument entity) {
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("documentKey", entity.getDocumentKey());
+        metadata.put("fileHash", entity.getFileHash());
+        metadata.put("chunkCount", entity.getChunkCount());
+        
+        return Document.builder()
+                .id(entity.getDocumentId())
+                .filename(entity.getFilename())
+                .contentHash(entity.getContentHash())
+                .source(entity.getSource())
+                .type(entity.getDocumentType() != null ? Document.DocumentType.valueOf(entity.getDocumentType()) : null)
+                .size(entity.getSize())
+                .metadata(metadata)
+                .createdAt(entity.getCreatedAt())
+                .updatedAt(entity.getUpdatedAt())
+                .version("1.0")
+                .status(Document.DocumentStatus.INDEXED)
+                .build();
+    }
+}
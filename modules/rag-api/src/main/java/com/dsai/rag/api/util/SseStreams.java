@@ -0,0 +1,76 @@
+package com.dsai.rag.api.util;
+
+import com.dsai.rag.common.dto.BaseResponse;
+import com.dsai.rag.core.service.RagOrchestrator;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * RagOrchestrator.StreamListener 콜백을 SSE 이벤트 스트림으로 바꿔 줍니다.
+ * 이벤트 순서는 sources → token(여러 번) → done 이며, 실패 시 error 이벤트 후 종료합니다.
+ * 검색 단계는 boundedElastic 에서 실행되므로 요청 스레드는 바로 반환됩니다.
+ * 클라이언트가 연결을 끊으면 whenCancelled 로 등록된 정리 작업이 실행됩니다.
+ */
+public final class SseStreams {
+
+    private SseStreams() {
+    }
+
+    public static <T> Flux<ServerSentEvent<Object>> stream(Consumer<RagOrchestrator.StreamListener<T>> call) {
+        return Flux.<ServerSentEvent<Object>>create(sink -> {
+            // FluxSink.onCancel 은 콜백을 하나만 받으므로 정리 작업을 모아 두었다가 한 번에 실행한다
+            List<Runnable> cleanups = new CopyOnWriteArrayList<>();
+            sink.onCancel(() -> cleanups.forEach(Runnable::run));
+            call.accept(listener(sink, cleanups));
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private static <T> RagOrchestrator.StreamListener<T> listener(FluxSink<ServerSentEvent<Object>> sink,
+                                                                  List<Runnable> cleanups) {
+        return new RagOrchestrator.StreamListener<T>() {
+            @Override
+            public void onSources(List<String> sources) {
+                sink.next(event("sources", sources));
+            }
+
+            @Override
+            public void onToken(String token) {
+                // 토큰 앞 공백이 SSE data 필드에서 잘리지 않도록 JSON 으로 감싼다
+                sink.next(event("token", Map.of("token", token)));
+            }
+
+            @Override
+            public void onComplete(T result) {
+                sink.next(event("done", result));
+                sink.complete();
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                sink.next(event("error", BaseResponse.error("STREAM_ERROR", String.valueOf(error.getMessage()))));
+                sink.complete();
+            }
+
+            @Override
+            public void whenCancelled(Runnable cleanup) {
+                cleanups.add(cleanup);
+                if (sink.isCancelled()) {
+                    cleanup.run();
+                }
+            }
+        };
+    }
+
+    private static ServerSentEvent<Object> event(String name, Object data) {
+        return ServerSentEvent.builder(data)
+                .event(name)
+                .build();
+    }
+}
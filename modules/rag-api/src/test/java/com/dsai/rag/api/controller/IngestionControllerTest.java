@@ -0,0 +1,40 @@
+package com.dsai.rag.api.controller;
+
+import com.dsai.rag.common.dto.BaseResponse;
+import com.dsai.rag.common.exception.RagException;
+import com.dsai.rag.embeddings.cache.EmbeddingCache;
+import com.dsai.rag.ingestion.batch.BatchIngestionService;
+import com.dsai.rag.ingestion.job.IngestionJob;
+import com.dsai.rag.ingestion.job.IngestionJobService;
+import com.dsai.rag.ingestion.service.DocumentIngestionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockMultipartFile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IngestionControllerTest {
+
+    @Test
+    void fullJobQueueReturnsServiceUnavailable() {
+        IngestionJobService jobService = mock(IngestionJobService.class);
+        when(jobService.submit(any(), anyString(), isNull(), anyBoolean())).thenThrow(
+                new RagException(RagException.ErrorCode.INGESTION_ERROR, "Ingestion queue is full, try again later"));
+        IngestionController controller = new IngestionController(mock(DocumentIngestionService.class), jobService,
+                mock(BatchIngestionService.class), mock(EmbeddingCache.class));
+
+        ResponseEntity<BaseResponse<IngestionJob>> response = controller.submitJob(
+                new MockMultipartFile("file", "a.txt", "text/plain", "hello".getBytes()), null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(response.getBody().isSuccess()).isFalse();
+        assertThat(response.getBody().getError()).isEqualTo("INGESTION_QUEUE_FULL");
+    }
+}
@@ -13,4 +13,5 @@ dependencies {
     api("dev.langchain4j:langchain4j:${property("langchain4jVersion")}")
     
     implementation("org.springframework:spring-context:6.1.13")
+    implementation("com.github.ben-manes.caffeine:caffeine:3.1.8")
 }
\ No newline at end of file
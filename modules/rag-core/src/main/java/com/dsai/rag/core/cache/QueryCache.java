@@ -0,0 +1,202 @@
+package com.dsai.rag.core.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * RAG 질의 캐시
+ * - 정규화된 질의 문자열 → 질의 임베딩
+ * - (질의, 검색된 청크 ID) 해시 → 최종 응답 (TTL)
+ * - 같은 청크 집합을 검색한 의미상 거의 같은 질의는 임베딩 유사도로 응답을 재사용
+ */
+@Slf4j
+@Component
+public class QueryCache {
+
+    private static final int MAX_NEAR_DUPLICATES_PER_CHUNK_SET = 8;
+
+    private final Cache<String, float[]> embeddingCache;
+    private final Cache<String, Object> responseCache;
+    private final Cache<String, List<NearDuplicate>> nearDuplicateCache;
+    private final boolean responseCacheEnabled;
+    private final double similarityThreshold;
+    private final AtomicLong nearDuplicateHits = new AtomicLong();
+
+    private record NearDuplicate(float[] queryEmbedding, Object response) {}
+
+    public QueryCache(
+            @Value("${rag.cache.embedding.max-size:5000}") int embeddingMaxSize,
+            @Value("${rag.cache.embedding.ttl-seconds:3600}") int embeddingTtlSeconds,
+            @Value("${rag.cache.response.enabled:false}") boolean responseCacheEnabled,
+            @Value("${rag.cache.response.max-size:1000}") int responseMaxSize,
+            @Value("${rag.cache.response.ttl-seconds:600}") int responseTtlSeconds,
+            @Value("${rag.cache.response.similarity-threshold:1.0}") double similarityThreshold) {
+
+        this.embeddingCache = Caffeine.newBuilder()
+                .maximumSize(embeddingMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(embeddingTtlSeconds))
+                .recordStats()
+                .build();
+        this.responseCache = Caffeine.newBuilder()
+                .maximumSize(responseMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(responseTtlSeconds))
+                .recordStats()
+                .build();
+        this.nearDuplicateCache = Caffeine.newBuilder()
+                .maximumSize(responseMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(responseTtlSeconds))
+                .build();
+        this.responseCacheEnabled = responseCacheEnabled;
+        this.similarityThreshold = similarityThreshold;
+
+        log.info("Initialized query cache (embedding max={}, response enabled={}, similarity threshold={})",
+                embeddingMaxSize, responseCacheEnabled, similarityThreshold);
+    }
+
+    /**
+     * 정규화된 질의로 임베딩을 조회하고, 없으면 loader 로 생성하여 저장합니다.
+     */
+    public float[] getEmbedding(String query, Supplier<float[]> loader) {
+        return embeddingCache.get(normalize(query), key -> loader.get());
+    }
+
+    /**
+     * 같은 질의 + 같은 청크 집합의 캐시된 응답, 또는 유사도 임계값 이상인 근사 중복 질의의 응답을 반환합니다.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getResponse(String query, float[] queryEmbedding, List<String> chunkIds) {
+        if (!responseCacheEnabled) {
+            return null;
+        }
+        String chunkSetKey = String.join(",", chunkIds);
+        Object cached = responseCache.getIfPresent(hash(normalize(query) + "|" + chunkSetKey));
+        if (cached != null || similarityThreshold >= 1.0) {
+            return (T) cached;
+        }
+
+        List<NearDuplicate> candidates = nearDuplicateCache.getIfPresent(hash(chunkSetKey));
+        if (candidates == null || queryEmbedding == null) {
+            return null;
+        }
+        synchronized (candidates) {
+            for (NearDuplicate candidate : candidates) {
+                if (cosine(candidate.queryEmbedding(), queryEmbedding) >= similarityThreshold) {
+                    nearDuplicateHits.incrementAndGet();
+                    return (T) candidate.response();
+                }
+            }
+        }
+        return null;
+    }
+
+    public void putResponse(String query, float[] queryEmbedding, List<String> chunkIds, Object response) {
+        if (!responseCacheEnabled || response == null) {
+            return;
+        }
+        String chunkSetKey = String.join(",", chunkIds);
+        responseCache.put(hash(normalize(query) + "|" + chunkSetKey), response);
+
+        if (similarityThreshold < 1.0 && queryEmbedding != null) {
+            List<NearDuplicate> candidates = nearDuplicateCache.get(hash(chunkSetKey), key -> new ArrayList<>());
+            synchronized (candidates) {
+                if (candidates.size() >= MAX_NEAR_DUPLICATES_PER_CHUNK_SET) {
+                    candidates.remove(0);
+                }
+                candidates.add(new NearDuplicate(queryEmbedding, response));
+            }
+        }
+    }
+
+    /**
+     * 캐시 통계 조회
+     */
+    public Map<String, CacheStats> getCacheStats() {
+        return Map.of(
+                "queryEmbedding", toStats(embeddingCache, 0),
+                "response", toStats(responseCache, nearDuplicateHits.get())
+        );
+    }
+
+    /**
+     * 캐시 초기화
+     */
+    public void clear() {
+        embeddingCache.invalidateAll();
+        responseCache.invalidateAll();
+        nearDuplicateCache.invalidateAll();
+        log.info("Query cache cleared");
+    }
+
+    static String normalize(String query) {
+        if (query == null) {
+            return "";
+        }
+        return query.trim()
+                .toLowerCase(Locale.ROOT)
+                .replaceAll("\\s+", " ")
+                .replaceAll("[\\s?.!。？！]+$", "");
+    }
+
+    private static CacheStats toStats(Cache<String, ?> cache, long nearDuplicateHitCount) {
+        var stats = cache.stats();
+        return CacheStats.builder()
+                .size(cache.estimatedSize())
+                .hitCount(stats.hitCount())
+                .missCount(stats.missCount())
+                .hitRate(stats.hitRate())
+                .evictionCount(stats.evictionCount())
+                .nearDuplicateHitCount(nearDuplicateHitCount)
+                .build();
+    }
+
+    private static String hash(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        if (a.length != b.length) {
+            return 0.0;
+        }
+        double dot = 0.0, normA = 0.0, normB = 0.0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return normA == 0.0 || normB == 0.0 ? 0.0 : dot / Math.sqrt(normA * normB);
+    }
+
+    /**
+     * 캐시 통계 DTO
+     */
+    @lombok.Builder
+    @lombok.Data
+    public static class CacheStats {
+        private long size;
+        private long hitCount;
+        private long missCount;
+        private double hitRate;
+        private long evictionCount;
+        private long nearDuplicateHitCount;
+    }
+}
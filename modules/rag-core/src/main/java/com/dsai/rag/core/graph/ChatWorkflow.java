@@ -1,6 +1,8 @@
 package com.dsai.rag.core.graph;
 
 import com.dsai.rag.core.service.RagOrchestrator;
+import com.dsai.rag.core.session.ChatSession;
+import com.dsai.rag.core.session.SessionStore;
 import com.dsai.rag.model.ChatRequest;
 import com.dsai.rag.model.QueryRequest;
 import dev.langchain4j.agent.tool.Tool;
@@ -10,8 +12,12 @@ import dev.langchain4j.data.message.AiMessage;
 import dev.langchain4j.data.message.ChatMessage;
 import dev.langchain4j.data.message.SystemMessage;
 import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.StreamingResponseHandler;
 import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
 import dev.langchain4j.model.ollama.OllamaChatModel;
+import dev.langchain4j.model.ollama.OllamaStreamingChatModel;
+import dev.langchain4j.model.output.Response;
 import dev.langchain4j.service.AiServices;
 import lombok.Builder;
 import lombok.Data;
@@ -20,21 +26,46 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 
 @Slf4j
 @Component
 public class ChatWorkflow {
 
+    private static final String INTENT_MODE_LLM = "llm";
+    private static final String WORKFLOW_STATE_KEY = "workflowState";
+
     private final RagOrchestrator ragOrchestrator;
+    private final IntentClassifier intentClassifier;
+    private final String intentMode;
+    private final boolean validationEnabled;
+    private final boolean speculativeRetrieval;
+    private final ExecutorService workflowExecutor = Executors.newVirtualThreadPerTaskExecutor();
     private final ChatLanguageModel chatModel;
-    private final Map<String, WorkflowState> stateStore = new HashMap<>();
+    private final StreamingChatLanguageModel streamingChatModel;
+    private final SessionStore sessionStore;
 
     public ChatWorkflow(RagOrchestrator ragOrchestrator,
+                       IntentClassifier intentClassifier,
+                       SessionStore sessionStore,
                        @Value("${ollama.base-url}") String ollamaUrl,
                        @Value("${ollama.chat-model}") String modelName,
-                       @Value("${ollama.timeout:120}") int timeout) {
+                       @Value("${ollama.timeout:120}") int timeout,
+                       @Value("${chat.workflow.intent-mode:rules}") String intentMode,
+                       @Value("${chat.workflow.validation.enabled:false}") boolean validationEnabled,
+                       @Value("${chat.workflow.speculative-retrieval:true}") boolean speculativeRetrieval) {
         this.ragOrchestrator = ragOrchestrator;
+        this.intentClassifier = intentClassifier;
+        this.sessionStore = sessionStore;
+        this.intentMode = intentMode;
+        this.validationEnabled = validationEnabled;
+        this.speculativeRetrieval = speculativeRetrieval;
         
         this.chatModel = OllamaChatModel.builder()
                 .baseUrl(ollamaUrl)
@@ -42,8 +73,15 @@ public class ChatWorkflow {
                 .timeout(java.time.Duration.ofSeconds(timeout))
                 .temperature(0.7)
                 .build();
+        this.streamingChatModel = OllamaStreamingChatModel.builder()
+                .baseUrl(ollamaUrl)
+                .modelName(modelName)
+                .timeout(java.time.Duration.ofSeconds(timeout))
+                .temperature(0.7)
+                .build();
                 
-        log.info("Initialized ChatWorkflow with model: {} at {}", modelName, ollamaUrl);
+        log.info("Initialized ChatWorkflow with model: {} at {} (intent: {}, validation: {}, speculative retrieval: {})",
+                modelName, ollamaUrl, intentMode, validationEnabled ? "async" : "off", isSpeculative());
     }
 
     @Data
@@ -67,31 +105,17 @@ public class ChatWorkflow {
         END
     }
 
-    public String processChat(ChatRequest request) {
+    /**
+     * session 은 호출자(ChatService)가 SessionStore.lock() 으로 잡아 둔 세션입니다.
+     */
+    public String processChat(ChatRequest request, ChatSession session) {
         long totalStartTime = System.currentTimeMillis();
         String sessionId = request.getSessionId();
-        WorkflowState state = stateStore.computeIfAbsent(sessionId, k ->
-            WorkflowState.builder()
-                .sessionId(sessionId)
-                .currentStep(WorkflowStep.START.name())
-                .messages(new ArrayList<>())
-                .context(new HashMap<>())
-                .useRag(request.isUseRag())
-                .stepTimings(new HashMap<>())
-                .build()
-        );
-
-        // Add user message
-        state.getMessages().add(UserMessage.from(request.getMessage()));
+        WorkflowState state = prepareState(request, session);
 
         // Execute workflow steps with timing
         state = executeStep(WorkflowStep.START, state);
-        state = executeStep(WorkflowStep.ANALYZE_INTENT, state);
-
-        if (state.isUseRag()) {
-            state = executeStep(WorkflowStep.RETRIEVE_CONTEXT, state);
-        }
-
+        state = analyzeAndRetrieve(state);
         state = executeStep(WorkflowStep.GENERATE_RESPONSE, state);
         state = executeStep(WorkflowStep.VALIDATE_RESPONSE, state);
         state = executeStep(WorkflowStep.END, state);
@@ -104,7 +128,151 @@ public class ChatWorkflow {
         return state.getLastResponse();
     }
 
+    /**
+     * processChat 과 같은 단계를 거치되 응답 생성은 토큰 단위로 흘려보냅니다.
+     * 검증은 processChat 과 마찬가지로 응답을 바꾸지 않는 비동기 검사만 수행합니다.
+     */
+    public void processChatStream(ChatRequest request, ChatSession session,
+                                  RagOrchestrator.StreamListener<String> listener) {
+        long totalStartTime = System.currentTimeMillis();
+        WorkflowState state;
+        try {
+            state = prepareState(request, session);
+            state = executeStep(WorkflowStep.START, state);
+            state = analyzeAndRetrieve(state);
+        } catch (Exception e) {
+            log.error("Workflow failed before streaming for session: {}", request.getSessionId(), e);
+            listener.onError(e);
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        List<String> sources = (List<String>) state.getContext().get("sources");
+        listener.onSources(sources != null ? sources : List.of());
+
+        WorkflowState streamingState = state;
+        long generateStartTime = System.currentTimeMillis();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        listener.whenCancelled(() -> cancelled.set(true));
+        streamingChatModel.generate(buildResponsePrompt(state), new StreamingResponseHandler<>() {
+            private boolean firstToken = true;
+
+            @Override
+            public void onNext(String token) {
+                if (cancelled.get()) {
+                    // 핸들러에는 취소 API 가 없으므로 예외로 응답 본문 읽기를 끊어 모델 스트림을 멈춘다
+                    throw new CancellationException("Stream cancelled by the client");
+                }
+                if (firstToken) {
+                    firstToken = false;
+                    log.info("[Performance] First token after {}ms", System.currentTimeMillis() - totalStartTime);
+                }
+                listener.onToken(token);
+            }
+
+            @Override
+            public void onComplete(Response<AiMessage> response) {
+                // 세션 상태(messages)는 잠금을 가진 동안에만 바꾼다. 이미 끊겨 잠금이 풀렸으면 결과를 버린다
+                if (cancelled.get() || !listener.beforeComplete()) {
+                    log.debug("Discarded streamed response for cancelled session: {}", streamingState.getSessionId());
+                    return;
+                }
+                try {
+                    String text = response.content().text();
+                    streamingState.setLastResponse(text == null || text.trim().isEmpty()
+                            ? "죄송합니다. 응답을 생성할 수 없습니다. 다시 시도해주세요." : text);
+                    streamingState.getStepTimings().put(WorkflowStep.GENERATE_RESPONSE.name(),
+                            System.currentTimeMillis() - generateStartTime);
+                    executeStep(WorkflowStep.VALIDATE_RESPONSE, streamingState);
+                    executeStep(WorkflowStep.END, streamingState);
+                } catch (RuntimeException e) {
+                    log.error("Failed to finish streamed response for session: {}", streamingState.getSessionId(), e);
+                    listener.onError(e);
+                    return;
+                }
+
+                log.info("[Performance] Session: {}, Total time: {}ms (streamed)",
+                        streamingState.getSessionId(), System.currentTimeMillis() - totalStartTime);
+                log.info("[Performance] Step timings: {}", streamingState.getStepTimings());
+                listener.onComplete(streamingState.getLastResponse());
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                if (cancelled.get()) {
+                    log.debug("Stopped streaming response for cancelled session: {}", streamingState.getSessionId());
+                } else {
+                    log.error("Streaming response generation failed for session: {}", streamingState.getSessionId(), error);
+                }
+                listener.onError(error);
+            }
+        });
+    }
+
+    /**
+     * ANALYZE_INTENT → RETRIEVE_CONTEXT. 투기적 모드에서는 LLM 의도 분석이 도는 동안 검색을 먼저 시작해 두고,
+     * 검색이 필요 없다고 판단되면 그 결과를 버립니다. 규칙 기반 분류는 즉시 끝나므로 숨길 지연이 없어 순차로 실행합니다.
+     * 투기적 검색은 이번 턴에만 쓰는 값이라 세션에 남는 WorkflowState 가 아닌 지역 변수로 다룹니다.
+     */
+    private WorkflowState analyzeAndRetrieve(WorkflowState state) {
+        Future<RagOrchestrator.RetrievalResult> speculative = null;
+        if (isSpeculative() && state.isUseRag()) {
+            QueryRequest queryRequest = buildQueryRequest(getLastUserMessage(state));
+            speculative = workflowExecutor.submit(() -> ragOrchestrator.retrieve(queryRequest));
+        }
+
+        try {
+            state = executeStep(WorkflowStep.ANALYZE_INTENT, state);
+            if (shouldRetrieve(state)) {
+                state = executeStep(WorkflowStep.RETRIEVE_CONTEXT, state, speculative);
+            } else if (speculative != null) {
+                log.debug("Discarded speculative retrieval for session: {}", state.getSessionId());
+            }
+        } finally {
+            // 이미 끝난 검색이면 영향 없음. 의도 분석이 실패했거나 검색이 필요 없으면 검색 스레드를 인터럽트한다
+            // (인터럽트에 반응하지 않는 호출은 끝까지 실행되고 결과만 버려진다)
+            if (speculative != null) {
+                speculative.cancel(true);
+            }
+        }
+        return state;
+    }
+
+    private boolean isSpeculative() {
+        return speculativeRetrieval && INTENT_MODE_LLM.equalsIgnoreCase(intentMode);
+    }
+
+    private WorkflowState prepareState(ChatRequest request, ChatSession session) {
+        String sessionId = request.getSessionId();
+        // 같은 세션의 요청은 호출자(ChatService)가 세션 잠금으로 직렬화한다
+        WorkflowState state = session.getAttribute(WORKFLOW_STATE_KEY, () ->
+            WorkflowState.builder()
+                .sessionId(sessionId)
+                .currentStep(WorkflowStep.START.name())
+                .messages(new ArrayList<>())
+                .context(new HashMap<>())
+                .useRag(request.isUseRag())
+                .stepTimings(new HashMap<>())
+                .build()
+        );
+
+        // Add user message
+        List<ChatMessage> messages = state.getMessages();
+        messages.add(UserMessage.from(request.getMessage()));
+        // 세션 대화 기록과 같은 한도로 자른다 (END 에서 붙는 응답까지 최대 maxHistory + 1 개)
+        int overflow = messages.size() - session.getMaxHistory();
+        if (overflow > 0) {
+            messages.subList(0, overflow).clear();
+        }
+        return state;
+    }
+
     private WorkflowState executeStep(WorkflowStep step, WorkflowState state) {
+        return executeStep(step, state, null);
+    }
+
+    private WorkflowState executeStep(WorkflowStep step, WorkflowState state,
+                                      Future<RagOrchestrator.RetrievalResult> speculativeRetrieval) {
         long stepStartTime = System.currentTimeMillis();
         log.debug("Executing step: {} for session: {}", step, state.getSessionId());
 
@@ -119,8 +287,8 @@ public class ChatWorkflow {
                 break;
                 
             case RETRIEVE_CONTEXT:
-                if (state.isUseRag()) {
-                    retrieveContext(state);
+                if (shouldRetrieve(state)) {
+                    retrieveContext(state, speculativeRetrieval);
                 }
                 state.setCurrentStep(WorkflowStep.GENERATE_RESPONSE.name());
                 break;
@@ -149,52 +317,78 @@ public class ChatWorkflow {
         return state;
     }
 
+    /**
+     * 기본은 규칙 기반 분류기로 판단해 LLM 호출을 하지 않습니다. chat.workflow.intent-mode=llm 이면 예전처럼 LLM 에 묻습니다.
+     * 이전 턴의 검색 결과가 이번 프롬프트에 섞이지 않도록 여기서 비워 둡니다.
+     */
     private void analyzeIntent(WorkflowState state) {
         long startTime = System.currentTimeMillis();
-        // Analyze user intent using LLM
         String lastUserMessage = getLastUserMessage(state);
+        state.getContext().remove("retrievedContext");
+        state.getContext().remove("sources");
         
-        String intentPrompt = String.format(
-            "다음 사용자 메시지의 의도를 분석하세요. 정보 검색이 필요한지, 일반 대화인지 판단하세요:\n%s\n\n" +
-            "응답 형식: [SEARCH_NEEDED] 또는 [GENERAL_CHAT]",
-            lastUserMessage
-        );
-        
-        String intentAnalysis = chatModel.generate(intentPrompt);
-        
-        if (intentAnalysis.contains("SEARCH_NEEDED")) {
-            state.getContext().put("needsSearch", true);
+        boolean needsSearch;
+        if (INTENT_MODE_LLM.equalsIgnoreCase(intentMode)) {
+            String intentPrompt = String.format(
+                "다음 사용자 메시지의 의도를 분석하세요. 정보 검색이 필요한지, 일반 대화인지 판단하세요:\n%s\n\n" +
+                "응답 형식: [SEARCH_NEEDED] 또는 [GENERAL_CHAT]",
+                lastUserMessage
+            );
+            needsSearch = chatModel.generate(intentPrompt).contains("SEARCH_NEEDED");
         } else {
-            state.getContext().put("needsSearch", false);
+            needsSearch = intentClassifier.classify(lastUserMessage) == IntentClassifier.Intent.SEARCH_NEEDED;
         }
+        state.getContext().put("needsSearch", needsSearch);
         
         log.debug("Intent analysis result: {}", state.getContext().get("needsSearch"));
-        log.info("[Performance] Intent analysis took {}ms", System.currentTimeMillis() - startTime);
+        log.info("[Performance] Intent analysis ({}) took {}ms", intentMode, System.currentTimeMillis() - startTime);
     }
 
-    private void retrieveContext(WorkflowState state) {
+    private boolean shouldRetrieve(WorkflowState state) {
+        return state.isUseRag() && !Boolean.FALSE.equals(state.getContext().get("needsSearch"));
+    }
+
+    private void retrieveContext(WorkflowState state, Future<RagOrchestrator.RetrievalResult> speculative) {
         long startTime = System.currentTimeMillis();
         String lastUserMessage = getLastUserMessage(state);
         
         try {
-            QueryRequest queryRequest = new QueryRequest();
-            queryRequest.setQuery(lastUserMessage);
-            queryRequest.setTopK(5);
-            
-            var ragResponse = ragOrchestrator.query(queryRequest);
-            state.getContext().put("retrievedContext", ragResponse.getContext());
-            state.getContext().put("sources", ragResponse.getSources());
+            // 컨텍스트만 필요하므로 생성 없이 검색만 수행 (투기적으로 시작한 검색이 있으면 그 결과를 기다림)
+            RagOrchestrator.RetrievalResult retrieval = speculative != null
+                    ? speculative.get()
+                    : ragOrchestrator.retrieve(buildQueryRequest(lastUserMessage));
+            state.getContext().put("retrievedContext", retrieval.context());
+            state.getContext().put("sources", retrieval.sources());
             
-            log.debug("Retrieved {} chunks for context", ragResponse.getRetrievedChunks());
+            log.debug("Retrieved {} chunks for context", retrieval.results().size());
         } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
             log.warn("Failed to retrieve context: {}", e.getMessage());
             state.getContext().put("retrievedContext", "");
         }
         log.info("[Performance] Context retrieval (RAG) took {}ms", System.currentTimeMillis() - startTime);
     }
 
+    private static QueryRequest buildQueryRequest(String message) {
+        QueryRequest queryRequest = new QueryRequest();
+        queryRequest.setQuery(message);
+        queryRequest.setTopK(5);
+        return queryRequest;
+    }
+
     private void generateResponse(WorkflowState state) {
         long startTime = System.currentTimeMillis();
+        
+        String response = chatModel.generate(buildResponsePrompt(state));
+        state.setLastResponse(response);
+        
+        log.debug("Generated response of length: {}", response.length());
+        log.info("[Performance] Response generation (Ollama) took {}ms", System.currentTimeMillis() - startTime);
+    }
+
+    private String buildResponsePrompt(WorkflowState state) {
         String lastUserMessage = getLastUserMessage(state);
         String context = (String) state.getContext().getOrDefault("retrievedContext", "");
         
@@ -215,25 +409,25 @@ public class ChatWorkflow {
                 lastUserMessage
             );
         }
-        
-        String response = chatModel.generate(prompt);
-        state.setLastResponse(response);
-        
-        log.debug("Generated response of length: {}", response.length());
-        log.info("[Performance] Response generation (Ollama) took {}ms", System.currentTimeMillis() - startTime);
+        return prompt;
     }
 
+    /**
+     * 빈 응답만 동기적으로 대체합니다. LLM 품질 검증은 chat.workflow.validation.enabled 일 때만
+     * 응답 반환을 막지 않도록 백그라운드에서 수행하며, 결과는 로그로만 남깁니다 (재생성하지 않음).
+     */
     private void validateResponse(WorkflowState state) {
-        long startTime = System.currentTimeMillis();
-        // Validate response quality
         String response = state.getLastResponse();
         
         if (response == null || response.trim().isEmpty()) {
             state.setLastResponse("죄송합니다. 응답을 생성할 수 없습니다. 다시 시도해주세요.");
             return;
         }
+        if (!validationEnabled) {
+            return;
+        }
         
-        // Check for hallucination or off-topic responses
+        String sessionId = state.getSessionId();
         String validationPrompt = String.format(
             "다음 응답이 적절한지 평가하세요. 부적절하거나 오류가 있으면 'INVALID', 적절하면 'VALID'를 응답하세요.\n\n" +
             "응답: %s\n\n" +
@@ -241,16 +435,18 @@ public class ChatWorkflow {
             response
         );
         
-        try {
-            String validation = chatModel.generate(validationPrompt);
-            if (validation.contains("INVALID")) {
-                log.warn("Response validation failed, regenerating...");
-                generateResponse(state); // Regenerate response
+        CompletableFuture.runAsync(() -> {
+            long startTime = System.currentTimeMillis();
+            try {
+                String validation = chatModel.generate(validationPrompt);
+                if (validation.contains("INVALID")) {
+                    log.warn("Response validation flagged the response for session: {}", sessionId);
+                }
+            } catch (Exception e) {
+                log.error("Failed to validate response: {}", e.getMessage());
             }
-        } catch (Exception e) {
-            log.error("Failed to validate response: {}", e.getMessage());
-        }
-        log.info("[Performance] Response validation took {}ms", System.currentTimeMillis() - startTime);
+            log.info("[Performance] Response validation (async) took {}ms", System.currentTimeMillis() - startTime);
+        }, workflowExecutor);
     }
 
     private String getLastUserMessage(WorkflowState state) {
@@ -264,11 +460,27 @@ public class ChatWorkflow {
     }
 
     public void clearSession(String sessionId) {
-        stateStore.remove(sessionId);
+        ChatSession session = sessionStore.get(sessionId);
+        if (session != null) {
+            session.removeAttribute(WORKFLOW_STATE_KEY);
+        }
         log.info("Cleared workflow state for session: {}", sessionId);
     }
 
     public List<String> getActiveSessions() {
-        return new ArrayList<>(stateStore.keySet());
+        return sessionStore.getSessionIds(session -> session.hasAttribute(WORKFLOW_STATE_KEY));
+    }
+
+    /**
+     * 세션의 마지막 턴에서 검색된 출처. 검색하지 않은 턴이면 빈 목록입니다.
+     */
+    @SuppressWarnings("unchecked")
+    public List<String> getSources(ChatSession session) {
+        if (!session.hasAttribute(WORKFLOW_STATE_KEY)) {
+            return List.of();
+        }
+        WorkflowState state = session.getAttribute(WORKFLOW_STATE_KEY, () -> null);
+        List<String> sources = (List<String>) state.getContext().get("sources");
+        return sources != null ? List.copyOf(sources) : List.of();
     }
 }
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.dsai.rag.core.graph;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * LLM 호출 없이 규칙으로 판단하는 의도 분류기
+ * 인사 / 감사 / 맞장구 같은 짧은 잡담만 GENERAL_CHAT 으로 보고, 나머지는 모두 검색이 필요한 것으로 봅니다.
+ * 애매한 경우 검색 쪽으로 기울어야 근거 없는 답변을 피할 수 있기 때문입니다.
+ */
+@Component
+public class IntentClassifier {
+
+    public enum Intent {
+        SEARCH_NEEDED, GENERAL_CHAT
+    }
+
+    private static final int SMALL_TALK_MAX_LENGTH = 20;
+
+    private static final Pattern SMALL_TALK = Pattern.compile(
+            "안녕|반가|고마|감사|수고|잘\\s?가|좋아|그래|알겠|오케이|괜찮|ㅎㅎ|ㅋㅋ"
+                    + "|\\b(hi|hello|hey|thanks|thank you|bye|ok|okay|good)\\b");
+
+    private static final Pattern INFORMATION_SEEKING = Pattern.compile(
+            "[?？]|뭐|무엇|무슨|어떻게|어떤|왜|언제|어디|누구|얼마|몇|알려|설명|찾아|비교|추천|방법|차이"
+                    + "|\\b(what|how|why|when|where|who|which|explain|find|compare|list)\\b");
+
+    public Intent classify(String message) {
+        if (message == null || message.isBlank()) {
+            return Intent.GENERAL_CHAT;
+        }
+        String normalized = message.strip().toLowerCase(Locale.ROOT);
+        if (INFORMATION_SEEKING.matcher(normalized).find()) {
+            return Intent.SEARCH_NEEDED;
+        }
+        if (normalized.length() <= SMALL_TALK_MAX_LENGTH
+                && SMALL_TALK.matcher(normalized).find()) {
+            return Intent.GENERAL_CHAT;
+        }
+        return Intent.SEARCH_NEEDED;
+    }
+}
@@ -1,6 +1,8 @@
 package com.dsai.rag.core.service;
 
 import com.dsai.rag.core.graph.ChatWorkflow;
+import com.dsai.rag.core.session.ChatSession;
+import com.dsai.rag.core.session.SessionStore;
 import com.dsai.rag.model.ChatMessage;
 import com.dsai.rag.model.ChatRequest;
 import com.dsai.rag.model.ChatResponse;
@@ -17,41 +19,39 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
+import java.time.Duration;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Service
 public class ChatService {
     
     private static final Logger logger = LoggerFactory.getLogger(ChatService.class);
+    private static final String CHAT_MEMORY_KEY = "chatMemory";
     
     private final RagOrchestrator ragOrchestrator;
     private final ChatWorkflow chatWorkflow;
+    private final SessionStore sessionStore;
+    private final Duration lockTimeout;
+    private final String ollamaBaseUrl;
+    private final String chatModelName;
+    private final int memoryWindowSize;
     private ChatLanguageModel chatModel;
-    private final Map<String, ChatMemory> sessionMemories = new ConcurrentHashMap<>();
-    private final Map<String, List<ChatMessage>> chatHistories = new ConcurrentHashMap<>();
-    
-    @Value("${ollama.base-url:http://localhost:11434}")
-    private String ollamaBaseUrl;
-    
-    @Value("${ollama.chat-model:llama3.2}")
-    private String chatModelName;
-    
-    @Value("${chat.memory.window-size:10}")
-    private int memoryWindowSize;
     
     public ChatService(RagOrchestrator ragOrchestrator,
                       ChatWorkflow chatWorkflow,
+                      SessionStore sessionStore,
                       @Value("${ollama.base-url:http://localhost:11434}") String ollamaBaseUrl,
                       @Value("${ollama.chat-model:llama3.2}") String chatModelName,
-                      @Value("${chat.memory.window-size:10}") int memoryWindowSize) {
+                      @Value("${chat.memory.window-size:10}") int memoryWindowSize,
+                      @Value("${chat.session.lock-timeout-ms:30000}") long lockTimeoutMs) {
         this.ragOrchestrator = ragOrchestrator;
         this.chatWorkflow = chatWorkflow;
+        this.sessionStore = sessionStore;
         this.ollamaBaseUrl = ollamaBaseUrl;
         this.chatModelName = chatModelName;
         this.memoryWindowSize = memoryWindowSize;
+        this.lockTimeout = Duration.ofMillis(lockTimeoutMs);
         this.chatModel = initializeChatModel();
     }
     
@@ -72,33 +72,38 @@ public class ChatService {
             request.setSessionId(sessionId);
         }
         
-        // Store chat history
-        List<ChatMessage> history = chatHistories.computeIfAbsent(sessionId, 
-            k -> new ArrayList<>());
-        history.add(new ChatMessage(sessionId, "user", request.getMessage()));
-        
-        // Use ChatWorkflow for processing
+        // 같은 세션의 요청은 한 번에 하나씩 처리 (워크플로 상태와 대화 기록을 함께 갱신하므로)
+        ChatSession session = sessionStore.lock(sessionId, lockTimeout);
+        if (session == null) {
+            throw new IllegalStateException(busyMessage(sessionId));
+        }
         String response;
-        List<String> sources = null;
-        
+        List<String> sources = List.of();
         try {
-            // Process through workflow
-            response = chatWorkflow.processChat(request);
-            logger.info("Chat processed through workflow for session: {}", sessionId);
-        } catch (Exception e) {
-            logger.error("Workflow processing failed, falling back to direct chat", e);
+            // Store chat history
+            session.addMessage(new ChatMessage(sessionId, "user", request.getMessage()));
+            
+            try {
+                // Process through workflow
+                response = chatWorkflow.processChat(request, session);
+                sources = chatWorkflow.getSources(session);
+                logger.info("Chat processed through workflow for session: {}", sessionId);
+            } catch (Exception e) {
+                logger.error("Workflow processing failed, falling back to direct chat", e);
+                
+                // Fallback to direct chat
+                ChatMemory memory = session.getAttribute(CHAT_MEMORY_KEY,
+                    () -> MessageWindowChatMemory.withMaxMessages(memoryWindowSize));
+                memory.add(UserMessage.from(request.getMessage()));
+                response = chatModel.generate(memory.messages()).content().text();
+                memory.add(AiMessage.from(response));
+            }
             
-            // Fallback to direct chat
-            ChatMemory memory = sessionMemories.computeIfAbsent(sessionId, 
-                k -> MessageWindowChatMemory.withMaxMessages(memoryWindowSize));
-            memory.add(UserMessage.from(request.getMessage()));
-            response = chatModel.generate(memory.messages()).content().text();
-            memory.add(AiMessage.from(response));
+            session.addMessage(new ChatMessage(sessionId, "assistant", response));
+        } finally {
+            sessionStore.unlock(session);
         }
         
-        
-        history.add(new ChatMessage(sessionId, "assistant", response));
-        
         ChatResponse chatResponse = new ChatResponse(sessionId, response);
         chatResponse.setSources(sources);
         chatResponse.setResponseTimeMs(System.currentTimeMillis() - startTime);
@@ -109,18 +114,118 @@ public class ChatService {
         return chatResponse;
     }
     
+    /**
+     * chat 의 스트리밍 버전. 토큰은 생성되는 대로 listener 로 전달되고, 완료 시 대화 기록에 저장됩니다.
+     */
+    public void chatStream(ChatRequest request, RagOrchestrator.StreamListener<ChatResponse> listener) {
+        long startTime = System.currentTimeMillis();
+        
+        String sessionId = request.getSessionId();
+        if (sessionId == null || sessionId.isEmpty()) {
+            sessionId = java.util.UUID.randomUUID().toString();
+            request.setSessionId(sessionId);
+        }
+        String resolvedSessionId = sessionId;
+        
+        ChatSession session = sessionStore.lock(sessionId, lockTimeout);
+        if (session == null) {
+            listener.onError(new IllegalStateException(busyMessage(sessionId)));
+            return;
+        }
+        // 잠금은 스트림이 끝나거나(onComplete) 실패하거나(onError) 클라이언트가 끊을 때 한 번만 풀린다
+        AtomicBoolean locked = new AtomicBoolean(true);
+        Runnable unlock = () -> {
+            if (locked.compareAndSet(true, false)) {
+                sessionStore.unlock(session);
+            }
+        };
+        listener.whenCancelled(unlock);
+        session.addMessage(new ChatMessage(sessionId, "user", request.getMessage()));
+        
+        try {
+            chatWorkflow.processChatStream(request, session, new RagOrchestrator.StreamListener<>() {
+                private List<String> sources;
+                // beforeComplete 로 잠금 해제 책임을 넘겨받은 뒤에는 끊김 정리가 잠금을 풀지 않는다
+                private volatile boolean claimed;
+                
+                @Override
+                public void onSources(List<String> sources) {
+                    this.sources = sources;
+                    listener.onSources(sources);
+                }
+                
+                @Override
+                public void onToken(String token) {
+                    listener.onToken(token);
+                }
+                
+                @Override
+                public boolean beforeComplete() {
+                    // 이미 끊긴 스트림이면 잠금이 풀려 다음 요청이 진행 중일 수 있으므로 워크플로가 상태를 건드리지 않게 한다
+                    claimed = locked.compareAndSet(true, false);
+                    if (!claimed) {
+                        logger.debug("Stream for session {} was cancelled, discarding the response", resolvedSessionId);
+                    }
+                    return claimed;
+                }
+                
+                @Override
+                public void onComplete(String response) {
+                    try {
+                        session.addMessage(new ChatMessage(resolvedSessionId, "assistant", response));
+                    } finally {
+                        sessionStore.unlock(session);
+                    }
+                
+                    ChatResponse chatResponse = new ChatResponse(resolvedSessionId, response);
+                    chatResponse.setSources(sources);
+                    chatResponse.setResponseTimeMs(System.currentTimeMillis() - startTime);
+                
+                    logger.info("Streamed chat response for session: {} in {}ms", 
+                               resolvedSessionId, chatResponse.getResponseTimeMs());
+                    listener.onComplete(chatResponse);
+                }
+                
+                @Override
+                public void onError(Throwable error) {
+                    if (claimed) {
+                        sessionStore.unlock(session);
+                    } else {
+                        unlock.run();
+                    }
+                    listener.onError(error);
+                }
+                
+                @Override
+                public void whenCancelled(Runnable cleanup) {
+                    listener.whenCancelled(cleanup);
+                }
+            });
+        } catch (RuntimeException e) {
+            unlock.run();
+            throw e;
+        }
+    }
+    
+    private String busyMessage(String sessionId) {
+        return "Session " + sessionId + " is still processing a previous request (waited " + lockTimeout.toMillis() + "ms)";
+    }
+    
     public List<ChatMessage> getChatHistory(String sessionId) {
-        return chatHistories.getOrDefault(sessionId, new ArrayList<>());
+        return sessionStore.getHistory(sessionId);
     }
     
     public void clearSession(String sessionId) {
-        sessionMemories.remove(sessionId);
-        chatHistories.remove(sessionId);
-        chatWorkflow.clearSession(sessionId);
+        // 워크플로 상태도 같은 세션에 들어 있으므로 세션을 지우면 함께 정리된다
+        sessionStore.invalidate(sessionId);
         logger.info("Cleared chat session: {}", sessionId);
     }
     
     public List<String> getActiveSessions() {
-        return new ArrayList<>(sessionMemories.keySet());
+        return sessionStore.getSessionIds();
+    }
+    
+    public SessionStore.SessionStats getSessionStats() {
+        return sessionStore.getStats();
     }
 }
\ No newline at end of file
@@ -1,11 +1,19 @@
 package com.dsai.rag.core.service;
 
+import com.dsai.rag.core.cache.QueryCache;
 import com.dsai.rag.embeddings.service.EmbeddingService;
 import com.dsai.rag.model.Chunk;
 import com.dsai.rag.model.QueryRequest;
+import com.dsai.rag.vectorstore.search.Projection;
+import com.dsai.rag.vectorstore.search.ScoredChunk;
 import com.dsai.rag.vectorstore.service.VectorStoreService;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.model.StreamingResponseHandler;
 import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
 import dev.langchain4j.model.ollama.OllamaChatModel;
+import dev.langchain4j.model.ollama.OllamaStreamingChatModel;
+import dev.langchain4j.model.output.Response;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -23,16 +31,26 @@ public class RagOrchestrator {
     private final EmbeddingService embeddingService;
     private final VectorStoreService vectorStoreService;
     private final ChatLanguageModel chatModel;
+    private final StreamingChatLanguageModel streamingChatModel;
+    private final QueryCache queryCache;
+    private final double relativeScoreCutoff;
+    private final int maxContextChars;
     
     public RagOrchestrator(
             EmbeddingService embeddingService,
             VectorStoreService vectorStoreService,
+            QueryCache queryCache,
             @Value("${ollama.base-url:http://localhost:11434}") String ollamaBaseUrl,
             @Value("${ollama.chat-model:llama3.2}") String chatModelName,
-            @Value("${ollama.timeout:120}") Integer timeout) {
+            @Value("${ollama.timeout:120}") Integer timeout,
+            @Value("${rag.context.relative-score-cutoff:0.8}") double relativeScoreCutoff,
+            @Value("${rag.context.max-chars:8000}") int maxContextChars) {
         
         this.embeddingService = embeddingService;
         this.vectorStoreService = vectorStoreService;
+        this.queryCache = queryCache;
+        this.relativeScoreCutoff = relativeScoreCutoff;
+        this.maxContextChars = maxContextChars;
         
         this.chatModel = OllamaChatModel.builder()
                 .baseUrl(ollamaBaseUrl)
@@ -40,85 +58,44 @@ public class RagOrchestrator {
                 .timeout(Duration.ofSeconds(timeout))
                 .temperature(0.7)
                 .build();
+        this.streamingChatModel = OllamaStreamingChatModel.builder()
+                .baseUrl(ollamaBaseUrl)
+                .modelName(chatModelName)
+                .timeout(Duration.ofSeconds(timeout))
+                .temperature(0.7)
+                .build();
         
         log.info("Initialized RAG orchestrator with model: {}", chatModelName);
     }
     
+    /**
+     * retrieve → generate 를 이어 붙인 전체 RAG 질의. 같은 질의 / 같은 검색 결과면 응답 캐시를 사용합니다.
+     */
     public RagResponse query(QueryRequest request) {
         long totalStartTime = System.currentTimeMillis();
         try {
             log.debug("Processing query: {}", request.getQuery());
-
-            // 임베딩 생성 시간 측정
-            long embeddingStartTime = System.currentTimeMillis();
-            List<Float> queryEmbedding = embeddingService.embedText(request.getQuery());
-            long embeddingTime = System.currentTimeMillis() - embeddingStartTime;
-            log.info("[Performance] Embedding generation took {}ms", embeddingTime);
-
-            // 벡터 검색 시간 측정
-            long searchStartTime = System.currentTimeMillis();
-            List<Chunk> retrievedChunks;
-            if (request.getStrategy() == QueryRequest.SearchStrategy.HYBRID) {
-                retrievedChunks = vectorStoreService.hybridSearch(
-                        request.getQuery(),
-                        queryEmbedding,
-                        request.getTopK() != null ? request.getTopK() : 5,
-                        request.getFilters()
-                );
-            } else {
-                retrievedChunks = vectorStoreService.search(
-                        request.getQuery(),
-                        queryEmbedding,
-                        request.getTopK() != null ? request.getTopK() : 5,
-                        request.getFilters()
-                );
-            }
-            long searchTime = System.currentTimeMillis() - searchStartTime;
-            log.info("[Performance] Vector search took {}ms", searchTime);
-
-            // Check if we have any retrieved chunks
-            if (retrievedChunks == null || retrievedChunks.isEmpty()) {
-                log.warn("No chunks retrieved, using direct LLM response");
-                String directPrompt = "당신은 도움이 되는 AI 어시스턴트입니다. 다음 질문에 답변해주세요: " + request.getQuery();
-
-                long llmStartTime = System.currentTimeMillis();
-                String response = chatModel.generate(directPrompt);
-                long llmTime = System.currentTimeMillis() - llmStartTime;
-                log.info("[Performance] Direct LLM response took {}ms", llmTime);
-
-                long totalTime = System.currentTimeMillis() - totalStartTime;
-                log.info("[Performance] Total RAG query time: {}ms (Embedding: {}ms, Search: {}ms, LLM: {}ms)",
-                        totalTime, embeddingTime, searchTime, llmTime);
-
-                return RagResponse.builder()
-                        .query(request.getQuery())
-                        .answer(response)
-                        .context("")
-                        .sources(new ArrayList<>())
-                        .retrievedChunks(0)
-                        .build();
+            RetrievalResult retrieval = retrieve(request);
+            
+            RagResponse cachedResponse = queryCache.getResponse(
+                    request.getQuery(), retrieval.queryEmbedding(), retrieval.chunkIds());
+            if (cachedResponse != null) {
+                log.info("[Performance] Total RAG query time: {}ms (response cache hit)",
+                        System.currentTimeMillis() - totalStartTime);
+                return cachedResponse;
             }
-
-            String context = buildContext(retrievedChunks);
-            String prompt = buildPrompt(request.getQuery(), context);
-
-            // LLM 응답 생성 시간 측정
+            
             long llmStartTime = System.currentTimeMillis();
-            String response = chatModel.generate(prompt);
+            String response = generate(request.getQuery(), retrieval.context());
             long llmTime = System.currentTimeMillis() - llmStartTime;
-            log.info("[Performance] LLM response generation took {}ms", llmTime);
-
+            
             long totalTime = System.currentTimeMillis() - totalStartTime;
             log.info("[Performance] Total RAG query time: {}ms (Embedding: {}ms, Search: {}ms, LLM: {}ms)",
-                    totalTime, embeddingTime, searchTime, llmTime);
-
-            return RagResponse.builder()
-                    .query(request.getQuery())
-                    .answer(response)
-                    .context(context)
-                    .sources(extractSources(retrievedChunks))
-                    .retrievedChunks(retrievedChunks.size())
-                    .build();
+                    totalTime, retrieval.embeddingTime(), retrieval.searchTime(), llmTime);
+            
+            RagResponse ragResponse = buildResponse(request.getQuery(), retrieval, response);
+            queryCache.putResponse(request.getQuery(), retrieval.queryEmbedding(), retrieval.chunkIds(), ragResponse);
+            return ragResponse;
             
         } catch (Exception e) {
             log.error("Failed to process query: {}", e.getMessage(), e);
@@ -126,6 +103,234 @@ public class RagOrchestrator {
         }
     }
     
+    /**
+     * query 와 같은 검색을 거친 뒤 답변을 토큰 단위로 흘려보냅니다.
+     * 검색은 호출 스레드에서 수행되고, 생성은 스트리밍 모델의 HTTP 클라이언트 스레드에서 listener 로 전달됩니다.
+     */
+    public void queryStream(QueryRequest request, StreamListener<RagResponse> listener) {
+        long totalStartTime = System.currentTimeMillis();
+        RetrievalResult retrieval;
+        try {
+            log.debug("Processing streaming query: {}", request.getQuery());
+            retrieval = retrieve(request);
+        } catch (Exception e) {
+            log.error("Failed to retrieve context for streaming query: {}", e.getMessage(), e);
+            listener.onError(e);
+            return;
+        }
+        listener.onSources(retrieval.sources());
+        
+        RagResponse cachedResponse = queryCache.getResponse(
+                request.getQuery(), retrieval.queryEmbedding(), retrieval.chunkIds());
+        if (cachedResponse != null) {
+            log.info("[Performance] Total RAG query time: {}ms (response cache hit)",
+                    System.currentTimeMillis() - totalStartTime);
+            listener.onToken(cachedResponse.getAnswer());
+            listener.onComplete(cachedResponse);
+            return;
+        }
+        
+        long llmStartTime = System.currentTimeMillis();
+        generateStream(request.getQuery(), retrieval.context(), new StreamListener<>() {
+            @Override
+            public void onToken(String token) {
+                listener.onToken(token);
+            }
+            
+            @Override
+            public void onComplete(String answer) {
+                long llmTime = System.currentTimeMillis() - llmStartTime;
+                log.info("[Performance] Total RAG query time: {}ms (Embedding: {}ms, Search: {}ms, LLM: {}ms, streamed)",
+                        System.currentTimeMillis() - totalStartTime, retrieval.embeddingTime(), retrieval.searchTime(), llmTime);
+                
+                RagResponse ragResponse = buildResponse(request.getQuery(), retrieval, answer);
+                queryCache.putResponse(request.getQuery(), retrieval.queryEmbedding(), retrieval.chunkIds(), ragResponse);
+                listener.onComplete(ragResponse);
+            }
+            
+            @Override
+            public void onError(Throwable error) {
+                listener.onError(error);
+            }
+        });
+    }
+    
+    /**
+     * 주어진 컨텍스트로 답변만 생성합니다. 컨텍스트가 비어 있으면 검색 근거 없이 바로 답합니다.
+     */
+    public String generate(String query, String context) {
+        long llmStartTime = System.currentTimeMillis();
+        String response = chatModel.generate(buildPrompt(query, context));
+        log.info("[Performance] LLM response generation took {}ms", System.currentTimeMillis() - llmStartTime);
+        return response;
+    }
+    
+    /**
+     * generate 의 스트리밍 버전. 토큰은 스트리밍 모델의 HTTP 클라이언트 스레드에서 전달되며, 완료 시 전체 답변을 넘깁니다.
+     */
+    public void generateStream(String query, String context, StreamListener<String> listener) {
+        long llmStartTime = System.currentTimeMillis();
+        streamingChatModel.generate(buildPrompt(query, context), new StreamingResponseHandler<>() {
+            private boolean firstToken = true;
+            
+            @Override
+            public void onNext(String token) {
+                if (firstToken) {
+                    firstToken = false;
+                    log.info("[Performance] First token after {}ms", System.currentTimeMillis() - llmStartTime);
+                }
+                listener.onToken(token);
+            }
+            
+            @Override
+            public void onComplete(Response<AiMessage> response) {
+                listener.onComplete(response.content().text());
+            }
+            
+            @Override
+            public void onError(Throwable error) {
+                log.error("Streaming generation failed: {}", error.getMessage(), error);
+                listener.onError(error);
+            }
+        });
+    }
+    
+    /**
+     * 스트리밍 응답 수신자. 출처 → 토큰들 → 완료(또는 오류) 순서로 호출됩니다.
+     */
+    public interface StreamListener<T> {
+        default void onSources(List<String> sources) {}
+        void onToken(String token);
+        void onComplete(T result);
+        void onError(Throwable error);
+        
+        /**
+         * 생성이 끝나 결과를 세션 상태에 반영하기 직전에 호출됩니다. false 면 수신 측이 이미 끊겼으므로
+         * 상태를 건드리지 않고 결과를 버립니다. true 를 돌려준 뒤에는 onComplete 나 onError 가 반드시 호출됩니다.
+         */
+        default boolean beforeComplete() {
+            return true;
+        }
+        
+        /**
+         * 수신 측이 완료 전에 스트림을 끊을 때(클라이언트 연결 종료 등) 실행할 정리 작업을 등록합니다.
+         * 여러 번 등록할 수 있으며, 끊김을 감지할 수 없는 수신자는 무시해도 됩니다.
+         */
+        default void whenCancelled(Runnable cleanup) {}
+    }
+    
+    /**
+     * 검색 단계 결과. results 는 적응형 컨텍스트 선택을 거친 청크들이고 context 는 그 본문을 이어 붙인 것입니다.
+     */
+    public record RetrievalResult(float[] queryEmbedding, List<ScoredChunk> results, String context,
+                                  long embeddingTime, long searchTime) {
+        public List<Chunk> chunks() {
+            return ScoredChunk.chunks(results);
+        }
+        
+        public List<String> chunkIds() {
+            return results.stream()
+                    .map(result -> result.chunk().getId())
+                    .collect(Collectors.toList());
+        }
+        
+        public List<String> sources() {
+            return extractSources(chunks());
+        }
+    }
+    
+    /**
+     * 임베딩과 검색만 수행하고 LLM 생성은 하지 않습니다. 컨텍스트만 필요한 호출자(ChatWorkflow 등)용입니다.
+     */
+    public RetrievalResult retrieve(QueryRequest request) {
+        QueryRequest.SearchStrategy strategy = request.getStrategy() != null
+                ? request.getStrategy() : QueryRequest.SearchStrategy.VECTOR_ONLY;
+        int topK = request.getTopK() != null ? request.getTopK() : 5;
+        
+        // 임베딩 생성 시간 측정 (BM25_ONLY 는 임베딩이 필요 없음)
+        long embeddingStartTime = System.currentTimeMillis();
+        float[] queryEmbedding = strategy == QueryRequest.SearchStrategy.BM25_ONLY ? null
+                : queryCache.getEmbedding(request.getQuery(), () -> embeddingService.embed(request.getQuery()));
+        long embeddingTime = System.currentTimeMillis() - embeddingStartTime;
+        log.info("[Performance] Embedding generation took {}ms", embeddingTime);
+        
+        // 검색 시간 측정 (컨텍스트 구성에 쓰지 않는 임베딩 등은 가져오지 않음)
+        long searchStartTime = System.currentTimeMillis();
+        Double minScore = request.getMinScore();
+        List<ScoredChunk> results = switch (strategy) {
+            case HYBRID -> vectorStoreService.hybridSearch(
+                    request.getQuery(), queryEmbedding, topK, minScore, request.getFilters(), Projection.CONTEXT);
+            case BM25_ONLY -> vectorStoreService.lexicalSearch(
+                    request.getQuery(), topK, minScore, request.getFilters(), Projection.CONTEXT);
+            case VECTOR_ONLY -> vectorStoreService.search(
+                    request.getQuery(), queryEmbedding, topK, minScore, request.getFilters(), Projection.CONTEXT);
+        };
+        long searchTime = System.currentTimeMillis() - searchStartTime;
+        log.info("[Performance] {} search took {}ms", strategy, searchTime);
+        
+        List<ScoredChunk> contextResults = selectContext(results, strategy);
+        if (results != null && contextResults.size() < results.size()) {
+            log.debug("Adaptive context kept {} of {} chunks", contextResults.size(), results.size());
+        }
+        if (contextResults.isEmpty()) {
+            log.warn("No chunks retrieved, using direct LLM response");
+        }
+        return new RetrievalResult(queryEmbedding, contextResults, buildContext(ScoredChunk.chunks(contextResults)),
+                embeddingTime, searchTime);
+    }
+    
+    private RagResponse buildResponse(String query, RetrievalResult retrieval, String answer) {
+        List<Chunk> chunks = retrieval.chunks();
+        return RagResponse.builder()
+                .query(query)
+                .answer(answer)
+                .context(retrieval.context())
+                .sources(retrieval.sources())
+                .scores(retrieval.results().stream().map(ScoredChunk::score).collect(Collectors.toList()))
+                .retrievedChunks(chunks.size())
+                .build();
+    }
+    
+    /**
+     * 질의 임베딩 / 응답 캐시 통계 조회
+     */
+    public Map<String, QueryCache.CacheStats> getCacheStats() {
+        return queryCache.getCacheStats();
+    }
+    
+    public void clearCache() {
+        queryCache.clear();
+    }
+    
+    /**
+     * 점수 내림차순 결과에서 최고 점수 대비 relativeScoreCutoff 미만으로 떨어지는 지점, 또는 컨텍스트가
+     * maxContextChars 를 넘는 지점에서 멈춥니다. 관련도가 낮은 청크로 프롬프트가 길어지는 것을 막기 위함이며,
+     * 최소 한 개는 항상 포함합니다.
+     * 비율 컷오프는 코사인 유사도인 VECTOR_ONLY 점수에만 적용합니다. BM25 점수와 RRF 점수는 척도가 달라
+     * 최고 점수 대비 비율이 관련도 차이를 뜻하지 않으므로 길이 한도만 적용하며, 최고 점수가 0 이하인 경우도 마찬가지입니다.
+     */
+    private List<ScoredChunk> selectContext(List<ScoredChunk> results, QueryRequest.SearchStrategy strategy) {
+        List<ScoredChunk> selected = new ArrayList<>();
+        if (results == null || results.isEmpty()) {
+            return selected;
+        }
+        
+        double topScore = results.get(0).score();
+        boolean applyCutoff = strategy == QueryRequest.SearchStrategy.VECTOR_ONLY && topScore > 0;
+        double threshold = topScore * relativeScoreCutoff;
+        int contextChars = 0;
+        for (ScoredChunk result : results) {
+            int length = result.chunk().getContent() != null ? result.chunk().getContent().length() : 0;
+            boolean belowCutoff = applyCutoff && result.score() < threshold;
+            if (!selected.isEmpty() && (belowCutoff || contextChars + length > maxContextChars)) {
+                break;
+            }
+            selected.add(result);
+            contextChars += length;
+        }
+        return selected;
+    }
+    
     private String buildContext(List<Chunk> chunks) {
         return chunks.stream()
                 .map(Chunk::getContent)
@@ -133,6 +338,9 @@ public class RagOrchestrator {
     }
     
     private String buildPrompt(String query, String context) {
+        if (context == null || context.isBlank()) {
+            return "당신은 도움이 되는 AI 어시스턴트입니다. 다음 질문에 답변해주세요: " + query;
+        }
         return String.format("""
                 You are a helpful AI assistant. Answer the question based on the provided context.
                 If the context doesn't contain enough information, say so.
@@ -145,7 +353,7 @@ public class RagOrchestrator {
                 Answer:""", context, query);
     }
     
-    private List<String> extractSources(List<Chunk> chunks) {
+    private static List<String> extractSources(List<Chunk> chunks) {
         return chunks.stream()
                 .map(chunk -> {
                     Map<String, Object> metadata = chunk.getMetadata();
@@ -163,6 +371,7 @@ public class RagOrchestrator {
         private String answer;
         private String context;
         private List<String> sources;
+        private List<Double> scores;
         private Integer retrievedChunks;
         
         public static RagResponseBuilder builder() {
@@ -174,6 +383,7 @@ public class RagOrchestrator {
             private String answer;
             private String context;
             private List<String> sources;
+            private List<Double> scores;
             private Integer retrievedChunks;
             
             public RagResponseBuilder query(String query) {
@@ -196,6 +406,11 @@ public class RagOrchestrator {
                 return this;
             }
             
+            public RagResponseBuilder scores(List<Double> scores) {
+                this.scores = scores;
+                return this;
+            }
+            
             public RagResponseBuilder retrievedChunks(Integer retrievedChunks) {
                 this.retrievedChunks = retrievedChunks;
                 return this;
@@ -207,6 +422,7 @@ public class RagOrchestrator {
                 response.answer = this.answer;
                 response.context = this.context;
                 response.sources = this.sources;
+                response.scores = this.scores;
                 response.retrievedChunks = this.retrievedChunks;
                 return response;
             }
@@ -216,6 +432,7 @@ public class RagOrchestrator {
         public String getAnswer() { return answer; }
         public String getContext() { return context; }
         public List<String> getSources() { return sources; }
+        public List<Double> getScores() { return scores; }
         public Integer getRetrievedChunks() { return retrievedChunks; }
     }
 }
\ No newline at end of file
@@ -0,0 +1,88 @@
+package com.dsai.rag.core.session;
+
+import com.dsai.rag.model.ChatMessage;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 한 채팅 세션의 상태
+ * 대화 기록은 디스크로 내보낼 수 있는 공통 필드로, 서비스별 상태(워크플로 상태, 대화 메모리 등)는 attribute 로 보관합니다.
+ * 같은 세션의 요청은 SessionStore.lock() / unlock() 으로 한 번에 하나씩 처리합니다. 스트리밍 응답은 다른 스레드에서
+ * 끝나므로 소유 스레드가 없는 세마포어를 씁니다.
+ */
+public class ChatSession {
+
+    private final String id;
+    private final int maxHistory;
+    private final List<ChatMessage> history = new CopyOnWriteArrayList<>();
+    private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+    private final Semaphore lock = new Semaphore(1);
+
+    ChatSession(String id, int maxHistory, List<ChatMessage> restoredHistory) {
+        this.id = id;
+        this.maxHistory = Math.max(1, maxHistory);
+        restoredHistory.forEach(this::addMessage);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public int getMaxHistory() {
+        return maxHistory;
+    }
+
+    /**
+     * timeout 안에 잠금을 얻지 못하면(앞선 요청이 아직 처리 중이면) false 를 돌려줍니다.
+     */
+    boolean tryLock(Duration timeout) {
+        try {
+            return lock.tryAcquire(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    void unlock() {
+        lock.release();
+    }
+
+    boolean isLocked() {
+        return lock.availablePermits() == 0;
+    }
+
+    /**
+     * 대화 기록에 추가하고, maxHistory 를 넘으면 오래된 메시지부터 버립니다.
+     */
+    public void addMessage(ChatMessage message) {
+        history.add(message);
+        while (history.size() > maxHistory) {
+            history.remove(0);
+        }
+    }
+
+    public List<ChatMessage> getHistory() {
+        return List.copyOf(history);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T getAttribute(String key, Supplier<T> initializer) {
+        return (T) attributes.computeIfAbsent(key, k -> initializer.get());
+    }
+
+    public boolean hasAttribute(String key) {
+        return attributes.containsKey(key);
+    }
+
+    public void removeAttribute(String key) {
+        attributes.remove(key);
+    }
+}
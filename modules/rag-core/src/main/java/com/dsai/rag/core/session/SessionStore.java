@@ -0,0 +1,351 @@
+package com.dsai.rag.core.session;
+
+import com.dsai.rag.model.ChatMessage;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * ChatService / ChatWorkflow 가 함께 쓰는 채팅 세션 저장소
+ * 세션 수(maxSize)와 유휴 시간(idleTimeout)으로 제한되는 Caffeine 캐시이며, 한도를 넘거나 만료된 세션은 메모리에서 빠집니다.
+ * overflow 를 켜면 빠지는 세션의 대화 기록을 디스크에 써 두었다가 같은 세션이 다시 오면 읽어 들입니다.
+ * 워크플로 상태나 대화 메모리 같은 attribute 는 디스크로 내보내지 않고 새로 만들어집니다.
+ * lock() 으로 잡힌 세션은 가중치 0, 만료 없음으로 고정되어 처리 중에 축출되지 않으므로, 같은 세션의 턴이
+ * 축출 후 새로 만들어진 세션에서 동시에 돌 수 없습니다.
+ */
+@Slf4j
+@Component
+public class SessionStore {
+
+    private static final String OVERFLOW_SUFFIX = ".session";
+
+    private final Cache<String, ChatSession> sessions;
+    private final int maxHistory;
+    private final boolean overflowEnabled;
+    private final Path overflowDirectory;
+    private final Duration overflowMaxAge;
+    private final AtomicLong evictedBySize = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+    private final AtomicLong restored = new AtomicLong();
+
+    public SessionStore(
+            @Value("${chat.session.max-size:10000}") int maxSize,
+            @Value("${chat.session.idle-timeout-minutes:60}") int idleTimeoutMinutes,
+            @Value("${chat.session.max-history:200}") int maxHistory,
+            @Value("${chat.session.overflow.enabled:false}") boolean overflowEnabled,
+            @Value("${chat.session.overflow.path:./data/chat-sessions}") String overflowPath,
+            @Value("${chat.session.overflow.max-age-hours:168}") int overflowMaxAgeHours) {
+        this.maxHistory = maxHistory;
+        this.overflowEnabled = overflowEnabled;
+        this.overflowDirectory = Path.of(overflowPath);
+        this.overflowMaxAge = Duration.ofHours(overflowMaxAgeHours);
+
+        // evictionListener 는 제거와 같은 원자적 구간에서 호출되므로, 같은 세션의 다음 요청은 디스크 기록이 끝난 뒤에 읽게 된다
+        long idleTimeoutNanos = Duration.ofMinutes(idleTimeoutMinutes).toNanos();
+        this.sessions = Caffeine.newBuilder()
+                .maximumWeight(maxSize)
+                .weigher((String sessionId, ChatSession session) -> session.isLocked() ? 0 : 1)
+                .expireAfter(new Expiry<String, ChatSession>() {
+                    @Override
+                    public long expireAfterCreate(String sessionId, ChatSession session, long currentTime) {
+                        return idleTimeoutNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String sessionId, ChatSession session, long currentTime,
+                                                  long currentDuration) {
+                        return session.isLocked() ? Long.MAX_VALUE : idleTimeoutNanos;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String sessionId, ChatSession session, long currentTime,
+                                                long currentDuration) {
+                        return session.isLocked() ? Long.MAX_VALUE : idleTimeoutNanos;
+                    }
+                })
+                .scheduler(Scheduler.systemScheduler())
+                .evictionListener(this::onEviction)
+                .recordStats()
+                .build();
+
+        if (overflowEnabled) {
+            purgeStaleOverflow();
+        }
+        log.info("Initialized session store (maxSize={}, idleTimeout={}m, maxHistory={}, overflow={})",
+                maxSize, idleTimeoutMinutes, maxHistory, overflowEnabled ? overflowPath : "off");
+    }
+
+    /**
+     * 세션을 조회하고, 없으면 디스크에 내보낸 기록이 있으면 복원하거나 새로 만듭니다.
+     */
+    public ChatSession getOrCreate(String sessionId) {
+        return sessions.get(sessionId, this::load);
+    }
+
+    /**
+     * 세션 잠금을 timeout 동안 기다려 얻고, 잠긴 세션을 캐시에 고정합니다. 얻지 못하면 null 을 돌려줍니다.
+     * 잠금을 기다리는 사이 세션이 축출되었으면 새로 올라온 세션으로 다시 시도합니다.
+     */
+    public ChatSession lock(String sessionId, Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (true) {
+            ChatSession session = getOrCreate(sessionId);
+            if (!session.tryLock(Duration.ofNanos(Math.max(0, deadline - System.nanoTime())))) {
+                return null;
+            }
+            // 다시 써야 weigher / expiry 가 잠긴 상태를 반영한다
+            if (sessions.asMap().computeIfPresent(sessionId, (id, current) -> current) == session) {
+                return session;
+            }
+            session.unlock();
+        }
+    }
+
+    /**
+     * 잠금을 풀고 세션의 고정을 해제합니다. 세션당 한 번만 호출해야 합니다.
+     */
+    public void unlock(ChatSession session) {
+        session.unlock();
+        sessions.asMap().computeIfPresent(session.getId(), (id, current) -> current);
+    }
+
+    public ChatSession get(String sessionId) {
+        return sessions.getIfPresent(sessionId);
+    }
+
+    /**
+     * 메모리에 없으면 디스크의 기록만 읽고 세션을 되살리지는 않습니다.
+     */
+    public List<ChatMessage> getHistory(String sessionId) {
+        ChatSession session = sessions.getIfPresent(sessionId);
+        if (session != null) {
+            return session.getHistory();
+        }
+        return overflowEnabled ? readOverflow(overflowFile(sessionId)) : List.of();
+    }
+
+    public void invalidate(String sessionId) {
+        sessions.invalidate(sessionId);
+        if (overflowEnabled) {
+            deleteQuietly(overflowFile(sessionId));
+        }
+    }
+
+    public List<String> getSessionIds() {
+        return new ArrayList<>(sessions.asMap().keySet());
+    }
+
+    /**
+     * 조건에 맞는 세션 ID 를 돌려줍니다. asMap 을 순회하므로 get() 과 달리 만료 시간과 적중 통계에 영향을 주지 않습니다.
+     */
+    public List<String> getSessionIds(Predicate<ChatSession> filter) {
+        List<String> sessionIds = new ArrayList<>();
+        sessions.asMap().forEach((sessionId, session) -> {
+            if (filter.test(session)) {
+                sessionIds.add(sessionId);
+            }
+        });
+        return sessionIds;
+    }
+
+    public SessionStats getStats() {
+        var stats = sessions.stats();
+        return SessionStats.builder()
+                .size(sessions.estimatedSize())
+                .hitCount(stats.hitCount())
+                .missCount(stats.missCount())
+                .evictedBySizeCount(evictedBySize.get())
+                .expiredCount(expired.get())
+                .spilledCount(spilled.get())
+                .restoredCount(restored.get())
+                .build();
+    }
+
+    private ChatSession load(String sessionId) {
+        List<ChatMessage> history = List.of();
+        if (overflowEnabled) {
+            Path file = overflowFile(sessionId);
+            history = readOverflow(file);
+            if (!history.isEmpty()) {
+                restored.incrementAndGet();
+                log.debug("Restored {} messages for session {} from disk", history.size(), sessionId);
+            }
+            deleteQuietly(file);
+        }
+        return new ChatSession(sessionId, maxHistory, history);
+    }
+
+    private void onEviction(String sessionId, ChatSession session, RemovalCause cause) {
+        if (cause == RemovalCause.SIZE) {
+            evictedBySize.incrementAndGet();
+        } else if (cause == RemovalCause.EXPIRED) {
+            expired.incrementAndGet();
+        }
+        if (!overflowEnabled || sessionId == null || session == null) {
+            return;
+        }
+        List<ChatMessage> history = session.getHistory();
+        if (history.isEmpty()) {
+            return;
+        }
+        try {
+            writeOverflow(overflowFile(sessionId), history);
+            spilled.incrementAndGet();
+        } catch (IOException e) {
+            log.warn("Failed to write session {} to disk, dropping its history: {}", sessionId, e.getMessage());
+        }
+    }
+
+    private Path overflowFile(String sessionId) {
+        // 세션 ID 는 클라이언트가 보내는 값이므로 그대로 파일명으로 쓰지 않는다
+        String name = UUID.nameUUIDFromBytes(sessionId.getBytes(StandardCharsets.UTF_8)).toString();
+        return overflowDirectory.resolve(name + OVERFLOW_SUFFIX);
+    }
+
+    private void writeOverflow(Path file, List<ChatMessage> history) throws IOException {
+        Files.createDirectories(overflowDirectory);
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(history.size());
+            for (ChatMessage message : history) {
+                writeString(out, message.getId());
+                writeString(out, message.getSessionId());
+                writeString(out, message.getRole());
+                writeString(out, message.getContent());
+                writeString(out, message.getTimestamp() != null ? message.getTimestamp().toString() : null);
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private List<ChatMessage> readOverflow(Path file) {
+        if (!Files.exists(file)) {
+            return List.of();
+        }
+        try {
+            if (isStale(file)) {
+                return List.of();
+            }
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                int count = in.readInt();
+                List<ChatMessage> history = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    ChatMessage message = new ChatMessage();
+                    message.setId(readString(in));
+                    message.setSessionId(readString(in));
+                    message.setRole(readString(in));
+                    message.setContent(readString(in));
+                    String timestamp = readString(in);
+                    message.setTimestamp(timestamp != null ? LocalDateTime.parse(timestamp) : null);
+                    history.add(message);
+                }
+                return history;
+            }
+        } catch (Exception e) {
+            log.warn("Failed to read session overflow {}: {}", file, e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * 다시 찾지 않은 채 maxAge 가 지난 기록은 기동 시 지웁니다.
+     */
+    private void purgeStaleOverflow() {
+        if (!Files.isDirectory(overflowDirectory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(overflowDirectory)) {
+            long purged = files.filter(file -> file.getFileName().toString().endsWith(OVERFLOW_SUFFIX))
+                    .filter(this::isStaleQuietly)
+                    .filter(this::deleteQuietly)
+                    .count();
+            if (purged > 0) {
+                log.info("Purged {} stale session files from {}", purged, overflowDirectory);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to purge session overflow directory {}: {}", overflowDirectory, e.getMessage());
+        }
+    }
+
+    private boolean isStale(Path file) throws IOException {
+        Instant modified = Files.getLastModifiedTime(file).toInstant();
+        return modified.plus(overflowMaxAge).isBefore(Instant.now());
+    }
+
+    private boolean isStaleQuietly(Path file) {
+        try {
+            return isStale(file);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private boolean deleteQuietly(Path file) {
+        try {
+            return Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete session overflow {}: {}", file, e.getMessage());
+            return false;
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 세션 저장소 통계 DTO
+     */
+    @lombok.Builder
+    @lombok.Data
+    public static class SessionStats {
+        private long size;
+        private long hitCount;
+        private long missCount;
+        private long evictedBySizeCount;
+        private long expiredCount;
+        private long spilledCount;
+        private long restoredCount;
+    }
+}
@@ -0,0 +1,78 @@
+package com.dsai.rag.core.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryCacheTest {
+
+    private static final float[] EMBEDDING = {1f, 0f, 0f};
+
+    @Test
+    void normalizedQueriesShareOneEmbedding() {
+        QueryCache cache = newCache(true, 1.0);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.getEmbedding("What is RAG?", () -> load(loads));
+        float[] second = cache.getEmbedding("  what   is rag ", () -> load(loads));
+
+        assertThat(loads).hasValue(1);
+        assertThat(second).containsExactly(EMBEDDING);
+        assertThat(cache.getCacheStats().get("queryEmbedding").getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void responseHitsOnlyForTheSameChunkSet() {
+        QueryCache cache = newCache(true, 1.0);
+        cache.putResponse("What is RAG?", EMBEDDING, List.of("c1", "c2"), "answer");
+
+        assertThat(cache.<String>getResponse("what is rag", EMBEDDING, List.of("c1", "c2"))).isEqualTo("answer");
+        // 색인이 바뀌어 다른 청크가 검색되면 예전 응답을 쓰지 않는다
+        assertThat(cache.<String>getResponse("what is rag", EMBEDDING, List.of("c1", "c3"))).isNull();
+    }
+
+    @Test
+    void nearDuplicateQueryReusesResponseAboveThreshold() {
+        QueryCache cache = newCache(true, 0.95);
+        cache.putResponse("What is RAG?", EMBEDDING, List.of("c1"), "answer");
+
+        assertThat(cache.<String>getResponse("Explain RAG", new float[]{0.99f, 0.05f, 0f}, List.of("c1")))
+                .isEqualTo("answer");
+        assertThat(cache.<String>getResponse("Explain HNSW", new float[]{0f, 1f, 0f}, List.of("c1"))).isNull();
+        assertThat(cache.getCacheStats().get("response").getNearDuplicateHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void clearInvalidatesEverything() {
+        QueryCache cache = newCache(true, 0.9);
+        AtomicInteger loads = new AtomicInteger();
+        cache.getEmbedding("query", () -> load(loads));
+        cache.putResponse("query", EMBEDDING, List.of("c1"), "answer");
+
+        cache.clear();
+
+        assertThat(cache.<String>getResponse("query", EMBEDDING, List.of("c1"))).isNull();
+        cache.getEmbedding("query", () -> load(loads));
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void disabledResponseCacheStoresNothing() {
+        QueryCache cache = newCache(false, 1.0);
+        cache.putResponse("query", EMBEDDING, List.of("c1"), "answer");
+
+        assertThat(cache.<String>getResponse("query", EMBEDDING, List.of("c1"))).isNull();
+    }
+
+    private static QueryCache newCache(boolean responseEnabled, double similarityThreshold) {
+        return new QueryCache(100, 3600, responseEnabled, 100, 600, similarityThreshold);
+    }
+
+    private static float[] load(AtomicInteger loads) {
+        loads.incrementAndGet();
+        return EMBEDDING.clone();
+    }
+}
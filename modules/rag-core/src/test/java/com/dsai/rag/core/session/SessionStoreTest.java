@@ -0,0 +1,79 @@
+package com.dsai.rag.core.session;
+
+import com.dsai.rag.model.ChatMessage;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SessionStoreTest {
+
+    @Test
+    void lockedSessionIsNotEvictedBySize() throws InterruptedException {
+        SessionStore store = newStore(2);
+        ChatSession locked = store.lock("locked", Duration.ofSeconds(1));
+        locked.addMessage(new ChatMessage("locked", "user", "hello"));
+
+        for (int i = 0; i < 50; i++) {
+            store.getOrCreate("idle-" + i);
+        }
+        awaitSize(store, 3);
+
+        // 잠긴 세션은 가중치 0 이라 크기 한도에 걸리지 않고, 같은 인스턴스가 남아 있어야 한다
+        assertThat(store.getSessionIds()).contains("locked").hasSizeLessThanOrEqualTo(3);
+        assertThat(store.get("locked")).isSameAs(locked);
+        assertThat(store.getStats().getEvictedBySizeCount()).isPositive();
+    }
+
+    @Test
+    void unlockedSessionBecomesEvictableAgain() throws InterruptedException {
+        SessionStore store = newStore(1);
+        ChatSession session = store.lock("a", Duration.ofSeconds(1));
+        store.unlock(session);
+
+        for (int i = 0; i < 50; i++) {
+            store.getOrCreate("other-" + i);
+        }
+        awaitSize(store, 1);
+
+        // 잠금이 풀리면 다시 가중치 1 이 되어 한도 1 안에 세션 하나만 남는다
+        assertThat(store.getSessionIds()).hasSize(1);
+    }
+
+    @Test
+    void lockTimesOutWhileAnotherTurnHoldsTheSession() {
+        SessionStore store = newStore(10);
+        ChatSession session = store.lock("a", Duration.ofSeconds(1));
+
+        assertThat(store.lock("a", Duration.ofMillis(50))).isNull();
+
+        store.unlock(session);
+        assertThat(store.lock("a", Duration.ofMillis(50))).isSameAs(session);
+    }
+
+    @Test
+    void filteredSessionIdsDoNotCountAsReads() {
+        SessionStore store = newStore(10);
+        store.getOrCreate("a");
+        store.getOrCreate("b");
+        long hits = store.getStats().getHitCount();
+
+        assertThat(store.getSessionIds(session -> session.getId().equals("b"))).containsExactly("b");
+        assertThat(store.getStats().getHitCount()).isEqualTo(hits);
+    }
+
+    private static SessionStore newStore(int maxSize) {
+        return new SessionStore(maxSize, 60, 200, false, "./build/test-sessions", 168);
+    }
+
+    /**
+     * Caffeine 의 크기 제한은 비동기로 정리되므로 한도까지 줄어들 때를 잠시 기다린다
+     */
+    private static void awaitSize(SessionStore store, int size) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (store.getSessionIds().size() > size && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+}
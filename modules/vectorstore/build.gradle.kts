@@ -14,5 +14,6 @@ dependencies {
     implementation("io.qdrant:client:${property("qdrantVersion")}")
     
     implementation("org.springframework:spring-context:6.1.13")
+    implementation("org.springframework.boot:spring-boot-autoconfigure:3.3.4")
     implementation("jakarta.annotation:jakarta.annotation-api:2.1.1")
 }
\ No newline at end of file
@@ -0,0 +1,261 @@
+package com.dsai.rag.vectorstore.bulk;
+
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
+import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 백그라운드 bulk 색인기
+ * 문서를 건수(maxActions) / 추정 바이트(maxBytes) / 시간(flushInterval) 중 먼저 도달하는 기준으로 묶어 보내고,
+ * 비동기 클라이언트로 최대 concurrentRequests 개의 bulk 요청을 동시에 유지합니다.
+ * 429 / 5xx 로 실패한 항목만 지수 백오프로 다시 보내며, 그 외 실패나 재시도 소진 시 해당 항목의 future 를 실패로 완료합니다.
+ * 동시 요청이 가득 차면 add 호출이 대기하므로 호출자 쪽 처리 속도가 ES 처리량에 맞춰집니다.
+ */
+@Slf4j
+public class BulkIndexer implements AutoCloseable {
+
+    private static final long DRAIN_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private record Pending(String id, Object document, long bytes, int attempt, CompletableFuture<Void> result) {
+        Pending retry() {
+            return new Pending(id, document, bytes, attempt + 1, result);
+        }
+    }
+
+    private final ElasticsearchAsyncClient client;
+    private final String indexName;
+    private final int maxActions;
+    private final long maxBytes;
+    private final int concurrentRequests;
+    private final int maxRetries;
+    private final long initialBackoffMillis;
+    private final Semaphore inFlight;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "es-bulk-indexer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private List<Pending> buffer = new ArrayList<>();
+    private long bufferBytes;
+    // 아직 결과가 정해지지 않은 문서 (버퍼, 전송 중, 재시도 대기 모두 포함)
+    private final Set<CompletableFuture<Void>> outstanding = ConcurrentHashMap.newKeySet();
+
+    public BulkIndexer(ElasticsearchAsyncClient client, String indexName, int maxActions, long maxBytes,
+                       long flushIntervalMillis, int concurrentRequests, int maxRetries, long initialBackoffMillis) {
+        this.client = client;
+        this.indexName = indexName;
+        this.maxActions = Math.max(1, maxActions);
+        this.maxBytes = Math.max(1, maxBytes);
+        this.concurrentRequests = Math.max(1, concurrentRequests);
+        this.maxRetries = Math.max(0, maxRetries);
+        this.initialBackoffMillis = Math.max(1, initialBackoffMillis);
+        this.inFlight = new Semaphore(this.concurrentRequests);
+
+        if (flushIntervalMillis > 0) {
+            scheduler.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * @param estimatedBytes 직렬화된 문서 크기 추정치 (maxBytes 기준 판단용)
+     * @return 해당 문서가 색인되면 완료되고, 재시도 후에도 실패하면 예외로 완료되는 future
+     */
+    public CompletableFuture<Void> add(String id, Object document, long estimatedBytes) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        outstanding.add(result);
+        result.whenComplete((ignored, error) -> outstanding.remove(result));
+        enqueue(List.of(new Pending(id, document, estimatedBytes, 0, result)));
+        return result;
+    }
+
+    /**
+     * 쌓인 문서를 보내고, 지금까지 add 된 문서가 재시도까지 포함해 모두 끝날 때까지 최대 timeout 동안 기다립니다.
+     * 호출자가 새 add 를 막은 상태에서 불러야 의미가 있습니다.
+     *
+     * @return 제한 시간 안에 모두 끝났으면 true
+     */
+    public boolean drain(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (true) {
+            // 재시도는 버퍼로 다시 들어오므로 기다리는 동안에도 주기적으로 보낸다
+            flush();
+            CompletableFuture<?>[] pending = outstanding.toArray(new CompletableFuture<?>[0]);
+            if (pending.length == 0) {
+                return true;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            try {
+                CompletableFuture.allOf(pending).get(Math.min(remaining, DRAIN_POLL_NANOS), TimeUnit.NANOSECONDS);
+            } catch (ExecutionException | TimeoutException e) {
+                // 실패한 문서도 끝난 것이고, 시간 초과면 다시 flush 후 확인한다
+            }
+        }
+    }
+
+    /**
+     * 쌓인 문서를 기준 도달 여부와 상관없이 바로 보냅니다.
+     */
+    public void flush() {
+        List<Pending> batch;
+        synchronized (this) {
+            batch = takeBuffer();
+        }
+        if (!batch.isEmpty()) {
+            send(batch);
+        }
+    }
+
+    /**
+     * 남은 문서를 보내고 진행 중인 요청과 예약된 재시도가 끝날 때까지 기다립니다.
+     */
+    @Override
+    public void close() {
+        flush();
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(30, TimeUnit.SECONDS);
+            flush();
+            if (inFlight.tryAcquire(concurrentRequests, 30, TimeUnit.SECONDS)) {
+                inFlight.release(concurrentRequests);
+            } else {
+                log.warn("Timed out waiting for in-flight bulk requests to {}", indexName);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void enqueue(List<Pending> items) {
+        List<List<Pending>> ready = new ArrayList<>();
+        synchronized (this) {
+            for (Pending item : items) {
+                buffer.add(item);
+                bufferBytes += item.bytes();
+                if (buffer.size() >= maxActions || bufferBytes >= maxBytes) {
+                    ready.add(takeBuffer());
+                }
+            }
+        }
+        for (List<Pending> batch : ready) {
+            send(batch);
+        }
+    }
+
+    private List<Pending> takeBuffer() {
+        List<Pending> batch = buffer;
+        buffer = new ArrayList<>();
+        bufferBytes = 0;
+        return batch;
+    }
+
+    private void send(List<Pending> batch) {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            batch.forEach(item -> item.result().completeExceptionally(e));
+            return;
+        }
+
+        BulkRequest.Builder request = new BulkRequest.Builder();
+        for (Pending item : batch) {
+            request.operations(op -> op.index(idx -> idx
+                    .index(indexName)
+                    .id(item.id())
+                    .document(item.document())
+            ));
+        }
+
+        CompletableFuture<BulkResponse> response;
+        try {
+            response = client.bulk(request.build());
+        } catch (Exception e) {
+            inFlight.release();
+            retryOrFail(batch, e.getMessage());
+            return;
+        }
+        response.whenComplete((result, error) -> {
+            inFlight.release();
+            if (error != null) {
+                retryOrFail(batch, error.getMessage());
+            } else {
+                handleResponse(batch, result);
+            }
+        });
+    }
+
+    private void handleResponse(List<Pending> batch, BulkResponse response) {
+        List<BulkResponseItem> items = response.items();
+        List<Pending> retryable = new ArrayList<>();
+        int failed = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            Pending item = batch.get(i);
+            BulkResponseItem responseItem = i < items.size() ? items.get(i) : null;
+            if (responseItem != null && responseItem.error() == null) {
+                item.result().complete(null);
+            } else if (responseItem == null || isRetryable(responseItem.status())) {
+                retryable.add(item);
+            } else {
+                failed++;
+                fail(item, responseItem.status() + " " + responseItem.error().reason());
+            }
+        }
+
+        if (!retryable.isEmpty()) {
+            retryOrFail(retryable, "rejected by cluster");
+        }
+        log.debug("Bulk request of {} documents took {}ms ({} retried, {} failed)",
+                batch.size(), response.took(), retryable.size(), failed);
+    }
+
+    private void retryOrFail(List<Pending> items, String reason) {
+        int retried = 0;
+        for (Pending item : items) {
+            if (item.attempt() >= maxRetries) {
+                fail(item, reason);
+                continue;
+            }
+            long backoff = initialBackoffMillis << item.attempt();
+            try {
+                scheduler.schedule(() -> enqueue(List.of(item.retry())), backoff, TimeUnit.MILLISECONDS);
+                retried++;
+            } catch (Exception e) {
+                // 종료 중이라 재시도를 예약할 수 없음
+                fail(item, reason);
+            }
+        }
+        if (retried > 0) {
+            log.warn("Retrying {} bulk items for index {}: {}", retried, indexName, reason);
+        }
+    }
+
+    private void fail(Pending item, String reason) {
+        log.error("Failed to index document {} into {} after {} attempts: {}",
+                item.id(), indexName, item.attempt() + 1, reason);
+        item.result().completeExceptionally(
+                new RuntimeException("Failed to index document " + item.id() + ": " + reason));
+    }
+
+    private static boolean isRetryable(int status) {
+        return status == 429 || status >= 500;
+    }
+}
@@ -0,0 +1,86 @@
+package com.dsai.rag.vectorstore.health;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 연속 실패가 failureThreshold 번 쌓이면 열려서 openDuration 동안 요청을 바로 거절하는 서킷 브레이커
+ * 열린 시간이 지나면 HALF_OPEN 으로 시험 요청 하나만 흘려보내고, 그 결과에 따라 닫히거나 다시 열립니다.
+ * 시험 요청이 결과를 기록하지 못하고 끝나도 openDuration 이 지나면 다음 요청을 새 시험 요청으로 보냅니다.
+ * 백그라운드 헬스 체크는 trip() / recordSuccess() 로 상태를 직접 바꿀 수 있습니다.
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openDurationMillis;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInFlight;
+    private long trialStartedAt;
+
+    public CircuitBreaker(String name, int failureThreshold, long openDurationMillis) {
+        this.name = name;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openDurationMillis = Math.max(0, openDurationMillis);
+    }
+
+    public synchronized boolean allowRequest() {
+        long now = System.currentTimeMillis();
+        if (state == State.OPEN && now - openedAt >= openDurationMillis) {
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+            log.info("Circuit {} half-open, letting a trial request through", name);
+        }
+        if (state != State.HALF_OPEN) {
+            return state == State.CLOSED;
+        }
+        // HALF_OPEN 에서는 시험 요청 하나만 통과시키고 나머지는 결과가 나올 때까지 거절한다
+        if (trialInFlight && now - trialStartedAt < openDurationMillis) {
+            return false;
+        }
+        trialInFlight = true;
+        trialStartedAt = now;
+        return true;
+    }
+
+    public synchronized void recordSuccess() {
+        if (state != State.CLOSED) {
+            log.info("Circuit {} closed", name);
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        trialInFlight = false;
+    }
+
+    public synchronized void recordFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            open();
+        }
+    }
+
+    /**
+     * 실패 횟수와 상관없이 즉시 연다 (헬스 체크가 클러스터 다운을 확인한 경우)
+     */
+    public synchronized void trip() {
+        open();
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void open() {
+        if (state != State.OPEN) {
+            log.warn("Circuit {} opened after {} consecutive failures", name, consecutiveFailures);
+        }
+        state = State.OPEN;
+        openedAt = System.currentTimeMillis();
+        trialInFlight = false;
+    }
+}
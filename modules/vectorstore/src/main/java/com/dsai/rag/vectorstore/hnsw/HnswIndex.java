@@ -0,0 +1,496 @@
+package com.dsai.rag.vectorstore.hnsw;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * Hierarchical Navigable Small World 그래프 (cosine 유사도)
+ * 벡터는 삽입 시 정규화되어 float[] 로 보관되며, 거리는 1 - dot 으로 계산합니다.
+ * 동기화는 호출자 책임입니다.
+ */
+public class HnswIndex {
+
+    private static final int FORMAT_VERSION = 1;
+
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+
+    private final List<Node> nodes = new ArrayList<>();
+    private final Map<String, Integer> labelToNode = new HashMap<>();
+
+    private int dimension = -1;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+    private int deletedCount = 0;
+
+    public HnswIndex(int m, int efConstruction) {
+        this.m = m;
+        this.maxM0 = m * 2;
+        this.efConstruction = Math.max(efConstruction, m);
+        this.levelMultiplier = 1.0 / Math.log(m);
+    }
+
+    public record SearchResult(String label, float score) {}
+
+    private static final class Node {
+        final String label;
+        final float[] vector;
+        final int level;
+        final int[][] links;
+        final int[] linkCounts;
+        boolean deleted;
+
+        Node(String label, float[] vector, int level, int m, int maxM0) {
+            this.label = label;
+            this.vector = vector;
+            this.level = level;
+            this.links = new int[level + 1][];
+            this.linkCounts = new int[level + 1];
+            for (int l = 0; l <= level; l++) {
+                links[l] = new int[l == 0 ? maxM0 : m];
+            }
+        }
+    }
+
+    private record Candidate(int node, float distance) {}
+
+    private static final Comparator<Candidate> NEAREST_FIRST = Comparator.comparingDouble(Candidate::distance);
+    private static final Comparator<Candidate> FARTHEST_FIRST = NEAREST_FIRST.reversed();
+
+    /**
+     * 벡터 추가. 같은 label 이 이미 있으면 기존 노드는 삭제 처리 후 새로 삽입합니다.
+     */
+    public void add(String label, float[] vector) {
+        if (dimension == -1) {
+            dimension = vector.length;
+        } else if (vector.length != dimension) {
+            throw new IllegalArgumentException(
+                    "Vector dimension mismatch: expected " + dimension + " but was " + vector.length);
+        }
+
+        remove(label);
+
+        float[] normalized = normalize(vector);
+        int level = randomLevel();
+        int id = nodes.size();
+        Node node = new Node(label, normalized, level, m, maxM0);
+        nodes.add(node);
+        labelToNode.put(label, id);
+
+        if (entryPoint == -1) {
+            entryPoint = id;
+            maxLevel = level;
+            return;
+        }
+
+        int current = entryPoint;
+        float currentDistance = distance(normalized, nodes.get(current).vector);
+        for (int l = maxLevel; l > level; l--) {
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                Node currentNode = nodes.get(current);
+                for (int i = 0; i < currentNode.linkCounts[l]; i++) {
+                    int neighbor = currentNode.links[l][i];
+                    float d = distance(normalized, nodes.get(neighbor).vector);
+                    if (d < currentDistance) {
+                        currentDistance = d;
+                        current = neighbor;
+                        changed = true;
+                    }
+                }
+            }
+        }
+
+        List<Candidate> entryPoints = new ArrayList<>();
+        entryPoints.add(new Candidate(current, currentDistance));
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            PriorityQueue<Candidate> found = searchLayer(normalized, entryPoints, efConstruction, l);
+            List<Candidate> sorted = new ArrayList<>(found);
+            sorted.sort(NEAREST_FIRST);
+
+            int maxConnections = l == 0 ? maxM0 : m;
+            List<Candidate> neighbors = selectNeighbors(sorted, m);
+            for (Candidate neighbor : neighbors) {
+                node.links[l][node.linkCounts[l]++] = neighbor.node();
+                connect(neighbor.node(), id, l, maxConnections);
+            }
+            entryPoints = sorted;
+        }
+
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = id;
+        }
+    }
+
+    /**
+     * label 에 해당하는 노드를 삭제 처리합니다. 그래프 연결은 탐색을 위해 유지됩니다.
+     */
+    public boolean remove(String label) {
+        Integer id = labelToNode.remove(label);
+        if (id == null) {
+            return false;
+        }
+        nodes.get(id).deleted = true;
+        deletedCount++;
+        return true;
+    }
+
+    public List<SearchResult> search(float[] query, int topK, int efSearch) {
+        return search(query, topK, efSearch, null);
+    }
+
+    /**
+     * filter 를 통과한 라벨만 결과에 넣는 검색. 걸러진 노드도 그래프 탐색 경로로는 사용하므로
+     * 사후 필터링과 달리 조건에 맞는 결과가 topK 개 모일 때까지 탐색을 이어갑니다.
+     */
+    public List<SearchResult> search(float[] query, int topK, int efSearch, Predicate<String> filter) {
+        List<SearchResult> results = new ArrayList<>();
+        if (entryPoint == -1 || size() == 0 || topK <= 0) {
+            return results;
+        }
+        if (query.length != dimension) {
+            throw new IllegalArgumentException(
+                    "Query dimension mismatch: expected " + dimension + " but was " + query.length);
+        }
+
+        float[] normalized = normalize(query);
+        int current = entryPoint;
+        float currentDistance = distance(normalized, nodes.get(current).vector);
+        for (int l = maxLevel; l > 0; l--) {
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                Node currentNode = nodes.get(current);
+                for (int i = 0; i < currentNode.linkCounts[l]; i++) {
+                    int neighbor = currentNode.links[l][i];
+                    float d = distance(normalized, nodes.get(neighbor).vector);
+                    if (d < currentDistance) {
+                        currentDistance = d;
+                        current = neighbor;
+                        changed = true;
+                    }
+                }
+            }
+        }
+
+        PriorityQueue<Candidate> found;
+        if (filter != null) {
+            found = searchLayerFiltered(normalized, new Candidate(current, currentDistance),
+                    Math.max(efSearch, topK), filter);
+        } else {
+            // 삭제된 노드는 탐색에는 쓰이지만 결과에서는 빠지므로 그만큼 ef 를 늘린다
+            int ef = Math.max(efSearch, topK) + Math.min(deletedCount, Math.max(efSearch, topK));
+            found = searchLayer(normalized, List.of(new Candidate(current, currentDistance)), ef, 0);
+        }
+        List<Candidate> sorted = new ArrayList<>(found);
+        sorted.sort(NEAREST_FIRST);
+
+        for (Candidate candidate : sorted) {
+            Node node = nodes.get(candidate.node());
+            if (node.deleted) {
+                continue;
+            }
+            results.add(new SearchResult(node.label, 1.0f - candidate.distance()));
+            if (results.size() >= topK) {
+                break;
+            }
+        }
+        return results;
+    }
+
+    public boolean contains(String label) {
+        return labelToNode.containsKey(label);
+    }
+
+    public int size() {
+        return labelToNode.size();
+    }
+
+    public int dimension() {
+        return dimension;
+    }
+
+    public List<String> labels() {
+        return new ArrayList<>(labelToNode.keySet());
+    }
+
+    /**
+     * 전체 노드 중 삭제 처리된 노드의 비율
+     */
+    public double deletedRatio() {
+        return nodes.isEmpty() ? 0.0 : (double) deletedCount / nodes.size();
+    }
+
+    /**
+     * 살아있는 노드의 (label, 정규화된 벡터) 를 삽입 순서대로 돌려줍니다.
+     * 새 인덱스에 다시 add 하면 삭제된 노드가 없는 그래프를 만들 수 있습니다. 벡터 배열은 복사하지 않습니다.
+     */
+    public Map<String, float[]> liveVectors() {
+        Map<String, float[]> live = new LinkedHashMap<>();
+        for (Node node : nodes) {
+            if (!node.deleted) {
+                live.put(node.label, node.vector);
+            }
+        }
+        return live;
+    }
+
+    public void clear() {
+        nodes.clear();
+        labelToNode.clear();
+        entryPoint = -1;
+        maxLevel = -1;
+        deletedCount = 0;
+    }
+
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(dimension);
+        out.writeInt(entryPoint);
+        out.writeInt(maxLevel);
+        out.writeInt(nodes.size());
+        for (Node node : nodes) {
+            out.writeUTF(node.label);
+            out.writeBoolean(node.deleted);
+            out.writeInt(node.level);
+            for (float v : node.vector) {
+                out.writeFloat(v);
+            }
+            for (int l = 0; l <= node.level; l++) {
+                out.writeInt(node.linkCounts[l]);
+                for (int i = 0; i < node.linkCounts[l]; i++) {
+                    out.writeInt(node.links[l][i]);
+                }
+            }
+        }
+    }
+
+    public void readFrom(DataInputStream in) throws IOException {
+        int version = in.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported HNSW snapshot version: " + version);
+        }
+        clear();
+        dimension = in.readInt();
+        entryPoint = in.readInt();
+        maxLevel = in.readInt();
+        int count = in.readInt();
+        for (int id = 0; id < count; id++) {
+            String label = in.readUTF();
+            boolean deleted = in.readBoolean();
+            int level = in.readInt();
+            float[] vector = new float[dimension];
+            for (int i = 0; i < dimension; i++) {
+                vector[i] = in.readFloat();
+            }
+            Node node = new Node(label, vector, level, m, maxM0);
+            for (int l = 0; l <= level; l++) {
+                int linkCount = in.readInt();
+                int capacity = node.links[l].length;
+                for (int i = 0; i < linkCount; i++) {
+                    int link = in.readInt();
+                    if (i < capacity) {
+                        node.links[l][i] = link;
+                    }
+                }
+                node.linkCounts[l] = Math.min(linkCount, capacity);
+            }
+            node.deleted = deleted;
+            nodes.add(node);
+            if (deleted) {
+                deletedCount++;
+            } else {
+                labelToNode.put(label, id);
+            }
+        }
+    }
+
+    /**
+     * 레이어 0 필터 탐색. found 에는 삭제되지 않고 filter 를 통과한 노드만 담습니다.
+     */
+    private PriorityQueue<Candidate> searchLayerFiltered(float[] query, Candidate entry, int ef, Predicate<String> filter) {
+        BitSet visited = new BitSet(nodes.size());
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>(NEAREST_FIRST);
+        PriorityQueue<Candidate> found = new PriorityQueue<>(FARTHEST_FIRST);
+
+        visited.set(entry.node());
+        candidates.add(entry);
+        if (accepts(entry.node(), filter)) {
+            found.add(entry);
+        }
+
+        while (!candidates.isEmpty()) {
+            Candidate closest = candidates.poll();
+            if (found.size() >= ef && closest.distance() > found.peek().distance()) {
+                break;
+            }
+            Node node = nodes.get(closest.node());
+            for (int i = 0; i < node.linkCounts[0]; i++) {
+                int neighbor = node.links[0][i];
+                if (visited.get(neighbor)) {
+                    continue;
+                }
+                visited.set(neighbor);
+                float d = distance(query, nodes.get(neighbor).vector);
+                if (found.size() < ef || d < found.peek().distance()) {
+                    Candidate candidate = new Candidate(neighbor, d);
+                    candidates.add(candidate);
+                    if (accepts(neighbor, filter)) {
+                        found.add(candidate);
+                        if (found.size() > ef) {
+                            found.poll();
+                        }
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    private boolean accepts(int id, Predicate<String> filter) {
+        Node node = nodes.get(id);
+        return !node.deleted && filter.test(node.label);
+    }
+
+    private PriorityQueue<Candidate> searchLayer(float[] query, List<Candidate> entryPoints, int ef, int level) {
+        BitSet visited = new BitSet(nodes.size());
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>(NEAREST_FIRST);
+        PriorityQueue<Candidate> found = new PriorityQueue<>(FARTHEST_FIRST);
+
+        for (Candidate entry : entryPoints) {
+            if (!visited.get(entry.node())) {
+                visited.set(entry.node());
+                candidates.add(entry);
+                found.add(entry);
+                if (found.size() > ef) {
+                    found.poll();
+                }
+            }
+        }
+
+        while (!candidates.isEmpty()) {
+            Candidate closest = candidates.poll();
+            if (found.size() >= ef && closest.distance() > found.peek().distance()) {
+                break;
+            }
+            Node node = nodes.get(closest.node());
+            if (level > node.level) {
+                continue;
+            }
+            for (int i = 0; i < node.linkCounts[level]; i++) {
+                int neighbor = node.links[level][i];
+                if (visited.get(neighbor)) {
+                    continue;
+                }
+                visited.set(neighbor);
+                float d = distance(query, nodes.get(neighbor).vector);
+                if (found.size() < ef || d < found.peek().distance()) {
+                    Candidate candidate = new Candidate(neighbor, d);
+                    candidates.add(candidate);
+                    found.add(candidate);
+                    if (found.size() > ef) {
+                        found.poll();
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 휴리스틱 이웃 선택: 이미 선택된 이웃보다 질의점에 더 가까운 후보만 채택하고,
+     * 부족하면 버려진 후보로 채워 연결성을 유지합니다. candidates 는 가까운 순으로 정렬되어 있어야 합니다.
+     */
+    private List<Candidate> selectNeighbors(List<Candidate> candidates, int limit) {
+        List<Candidate> selected = new ArrayList<>(limit);
+        List<Candidate> pruned = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            if (selected.size() >= limit) {
+                break;
+            }
+            float[] vector = nodes.get(candidate.node()).vector;
+            boolean keep = true;
+            for (Candidate s : selected) {
+                if (distance(vector, nodes.get(s.node()).vector) < candidate.distance()) {
+                    keep = false;
+                    break;
+                }
+            }
+            if (keep) {
+                selected.add(candidate);
+            } else {
+                pruned.add(candidate);
+            }
+        }
+        for (int i = 0; i < pruned.size() && selected.size() < limit; i++) {
+            selected.add(pruned.get(i));
+        }
+        return selected;
+    }
+
+    private void connect(int from, int to, int level, int maxConnections) {
+        Node node = nodes.get(from);
+        if (node.linkCounts[level] < maxConnections) {
+            node.links[level][node.linkCounts[level]++] = to;
+            return;
+        }
+
+        List<Candidate> candidates = new ArrayList<>(maxConnections + 1);
+        candidates.add(new Candidate(to, distance(node.vector, nodes.get(to).vector)));
+        for (int i = 0; i < node.linkCounts[level]; i++) {
+            int neighbor = node.links[level][i];
+            candidates.add(new Candidate(neighbor, distance(node.vector, nodes.get(neighbor).vector)));
+        }
+        candidates.sort(NEAREST_FIRST);
+
+        List<Candidate> kept = selectNeighbors(candidates, maxConnections);
+        node.linkCounts[level] = kept.size();
+        for (int i = 0; i < kept.size(); i++) {
+            node.links[level][i] = kept.get(i).node();
+        }
+    }
+
+    private int randomLevel() {
+        double r = ThreadLocalRandom.current().nextDouble();
+        return (int) (-Math.log(1.0 - r) * levelMultiplier);
+    }
+
+    private static float distance(float[] a, float[] b) {
+        float dot = 0f;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+        }
+        return 1.0f - dot;
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0.0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        norm = Math.sqrt(norm);
+        float[] result = new float[vector.length];
+        if (norm == 0.0) {
+            return result;
+        }
+        for (int i = 0; i < vector.length; i++) {
+            result[i] = (float) (vector[i] / norm);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,37 @@
+package com.dsai.rag.vectorstore.search;
+
+import java.util.List;
+
+/**
+ * 검색 결과에 담을 청크 필드 범위
+ * 임베딩 벡터는 히트마다 수천 바이트라 응답 생성에 쓰지 않는다면 가져오지 않는 편이 훨씬 가볍습니다.
+ */
+public enum Projection {
+    /** 임베딩을 포함한 전체 필드 */
+    FULL(List.of(), List.of()),
+    /** 임베딩만 제외 */
+    NO_EMBEDDING(List.of(), List.of("embedding")),
+    /** 프롬프트 컨텍스트와 출처 표시에 필요한 필드만 */
+    CONTEXT(List.of("id", "documentId", "content", "chunkIndex", "type", "metadata"), List.of());
+
+    private final List<String> includes;
+    private final List<String> excludes;
+
+    Projection(List<String> includes, List<String> excludes) {
+        this.includes = includes;
+        this.excludes = excludes;
+    }
+
+    public List<String> includes() {
+        return includes;
+    }
+
+    public List<String> excludes() {
+        return excludes;
+    }
+
+    /** 임베딩까지 포함하는지 여부. 이 경우 _source 를 필터 없이 그대로 가져옵니다 */
+    public boolean includesEmbedding() {
+        return this == FULL;
+    }
+}
@@ -0,0 +1,37 @@
+package com.dsai.rag.vectorstore.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 여러 검색 결과 순위를 하나로 합치는 Reciprocal Rank Fusion
+ * 점수 스케일이 다른 BM25 와 벡터 유사도를 점수 대신 순위로 결합합니다: score(d) = Σ 1 / (k + rank(d))
+ */
+public final class RankFusion {
+
+    private RankFusion() {
+    }
+
+    /**
+     * 입력 순위의 원래 점수는 버리고 RRF 점수를 담아 돌려줍니다.
+     */
+    @SafeVarargs
+    public static List<ScoredChunk> reciprocalRank(int k, int topK, List<ScoredChunk>... rankings) {
+        Map<String, ScoredChunk> fused = new LinkedHashMap<>();
+        for (List<ScoredChunk> ranking : rankings) {
+            for (int rank = 0; rank < ranking.size(); rank++) {
+                ScoredChunk result = ranking.get(rank);
+                double contribution = 1.0 / (k + rank + 1);
+                fused.merge(result.chunk().getId(), new ScoredChunk(result.chunk(), contribution),
+                        (existing, added) -> new ScoredChunk(existing.chunk(), existing.score() + added.score()));
+            }
+        }
+
+        List<ScoredChunk> results = new ArrayList<>(fused.values());
+        results.sort(Comparator.comparingDouble(ScoredChunk::score).reversed());
+        return results.size() > topK ? new ArrayList<>(results.subList(0, topK)) : results;
+    }
+}
@@ -0,0 +1,19 @@
+package com.dsai.rag.vectorstore.search;
+
+import com.dsai.rag.model.Chunk;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 검색 결과 청크와 그 점수. 점수의 의미는 검색 방식에 따라 다릅니다
+ * (kNN 은 코사인 유사도, BM25 는 BM25 점수, 하이브리드는 RRF 점수).
+ */
+public record ScoredChunk(Chunk chunk, double score) {
+
+    public static List<Chunk> chunks(List<ScoredChunk> results) {
+        return results.stream()
+                .map(ScoredChunk::chunk)
+                .collect(Collectors.toList());
+    }
+}
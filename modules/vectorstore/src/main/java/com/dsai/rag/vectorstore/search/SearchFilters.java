@@ -0,0 +1,113 @@
+package com.dsai.rag.vectorstore.search;
+
+import com.dsai.rag.model.Chunk;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 검색 필터(QueryRequest.filters) 해석 규칙
+ * - 값이 단일 값이면 일치(term), 컬렉션이면 그중 하나와 일치(terms), gte/gt/lte/lt 키만 가진 Map 이면 범위(range)
+ * - id, documentId, chunkIndex, contentHash, type 은 청크 필드이고, 그 외 키는 metadata 필드입니다
+ *   (documentType, source, filename, section 등). "metadata." 접두어를 붙여도 됩니다.
+ * 여러 키는 AND 로 결합됩니다.
+ */
+public final class SearchFilters {
+
+    private static final Set<String> CHUNK_FIELDS = Set.of("id", "documentId", "chunkIndex", "contentHash", "type");
+    private static final Set<String> RANGE_OPERATORS = Set.of("gte", "gt", "lte", "lt");
+    private static final String METADATA_PREFIX = "metadata.";
+
+    private SearchFilters() {
+    }
+
+    public static boolean isEmpty(Map<String, Object> filters) {
+        return filters == null || filters.isEmpty();
+    }
+
+    /**
+     * 필터 키를 저장 문서의 필드 경로로 바꿉니다 (예: documentType → metadata.documentType).
+     */
+    public static String fieldPath(String key) {
+        if (CHUNK_FIELDS.contains(key) || key.startsWith(METADATA_PREFIX)) {
+            return key;
+        }
+        return METADATA_PREFIX + key;
+    }
+
+    public static boolean isRange(Object value) {
+        return value instanceof Map<?, ?> map && !map.isEmpty() && RANGE_OPERATORS.containsAll(map.keySet());
+    }
+
+    /**
+     * 메모리에 있는 청크에 필터를 적용합니다 (ES 를 쓰지 않는 저장소용).
+     */
+    public static boolean matches(Chunk chunk, Map<String, Object> filters) {
+        if (isEmpty(filters)) {
+            return true;
+        }
+        for (Map.Entry<String, Object> filter : filters.entrySet()) {
+            if (filter.getValue() == null) {
+                continue;
+            }
+            Object actual = fieldValue(chunk, fieldPath(filter.getKey()));
+            if (!matchesValue(actual, filter.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matchesValue(Object actual, Object expected) {
+        if (actual == null) {
+            return false;
+        }
+        if (isRange(expected)) {
+            for (Map.Entry<?, ?> bound : ((Map<?, ?>) expected).entrySet()) {
+                int cmp = compare(actual, bound.getValue());
+                boolean ok = switch (bound.getKey().toString()) {
+                    case "gte" -> cmp >= 0;
+                    case "gt" -> cmp > 0;
+                    case "lte" -> cmp <= 0;
+                    default -> cmp < 0;
+                };
+                if (!ok) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (expected instanceof Collection<?> values) {
+            return values.stream().anyMatch(value -> compare(actual, value) == 0);
+        }
+        return compare(actual, expected) == 0;
+    }
+
+    private static int compare(Object actual, Object expected) {
+        if (actual instanceof Number a && expected instanceof Number e) {
+            return Double.compare(a.doubleValue(), e.doubleValue());
+        }
+        if (actual instanceof Number a) {
+            try {
+                return Double.compare(a.doubleValue(), Double.parseDouble(expected.toString()));
+            } catch (NumberFormatException ignored) {
+                // 숫자가 아니면 문자열로 비교
+            }
+        }
+        return actual.toString().compareTo(expected.toString());
+    }
+
+    private static Object fieldValue(Chunk chunk, String path) {
+        return switch (path) {
+            case "id" -> chunk.getId();
+            case "documentId" -> chunk.getDocumentId();
+            case "chunkIndex" -> chunk.getChunkIndex();
+            case "contentHash" -> chunk.getContentHash();
+            case "type" -> chunk.getType() != null ? chunk.getType().name() : null;
+            default -> chunk.getMetadata() != null
+                    ? chunk.getMetadata().get(path.substring(METADATA_PREFIX.length()))
+                    : null;
+        };
+    }
+}
@@ -1,43 +1,120 @@
 package com.dsai.rag.vectorstore.service;
 
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
 import co.elastic.clients.elasticsearch.ElasticsearchClient;
 import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.mapping.TypeMapping;
 import co.elastic.clients.elasticsearch._types.query_dsl.*;
 import co.elastic.clients.elasticsearch.core.*;
 import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.elasticsearch.core.search.SourceConfig;
+import co.elastic.clients.elasticsearch.indices.GetMappingResponse;
 import co.elastic.clients.json.JsonData;
 import co.elastic.clients.json.jackson.JacksonJsonpMapper;
 import co.elastic.clients.transport.ElasticsearchTransport;
 import co.elastic.clients.transport.rest_client.RestClientTransport;
 import com.dsai.rag.model.Chunk;
+import com.dsai.rag.model.Vectors;
+import com.dsai.rag.vectorstore.bulk.BulkIndexer;
+import com.dsai.rag.vectorstore.health.CircuitBreaker;
+import com.dsai.rag.vectorstore.search.Projection;
+import com.dsai.rag.vectorstore.search.RankFusion;
+import com.dsai.rag.vectorstore.search.ScoredChunk;
+import com.dsai.rag.vectorstore.search.SearchFilters;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.http.HttpHost;
 import org.elasticsearch.client.RestClient;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Service
+@ConditionalOnProperty(name = "vectorstore.type", havingValue = "elasticsearch", matchIfMissing = true)
 public class ElasticsearchVectorStore implements VectorStoreService {
     
+    private static final int CHUNK_HASH_PAGE_SIZE = 1000;
+    private static final Duration MIGRATION_DRAIN_TIMEOUT = Duration.ofSeconds(60);
+    // text 로 매핑된 필드는 keyword 서브필드로 필터링
+    private static final Set<String> KEYWORD_SUBFIELDS = Set.of("metadata.filename");
+    
     private final ElasticsearchClient client;
+    private final BulkIndexer bulkIndexer;
     private final String indexName;
     private final ObjectMapper objectMapper;
+    private final int embeddingDims;
+    private final String contentAnalyzer;
+    private final int numCandidatesFactor;
+    private final boolean migrateOnStartup;
+    private final int hybridWindowFactor;
+    private final int rrfK;
+    private final ExecutorService searchExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final CircuitBreaker circuitBreaker;
+    private final long healthCheckIntervalSeconds;
+    private final ScheduledExecutorService healthMonitor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "es-health-monitor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean indexReady;
+    // 쓰기는 읽기 잠금, migrateIndex 는 쓰기 잠금을 잡아 재색인 중의 쓰기가 옛 인덱스에만 남지 않게 한다
+    private final ReentrantReadWriteLock migrationLock = new ReentrantReadWriteLock();
     
     public ElasticsearchVectorStore(
             @Value("${elasticsearch.host:localhost}") String host,
             @Value("${elasticsearch.port:9200}") int port,
-            @Value("${elasticsearch.index:rag-chunks}") String indexName) {
+            @Value("${elasticsearch.index:rag-chunks}") String indexName,
+            @Value("${elasticsearch.embedding-dims:768}") int embeddingDims,
+            @Value("${elasticsearch.content-analyzer:standard}") String contentAnalyzer,
+            @Value("${elasticsearch.knn.num-candidates-factor:10}") int numCandidatesFactor,
+            @Value("${elasticsearch.migrate-on-startup:false}") boolean migrateOnStartup,
+            @Value("${elasticsearch.hybrid.window-factor:4}") int hybridWindowFactor,
+            @Value("${elasticsearch.hybrid.rrf-k:60}") int rrfK,
+            @Value("${elasticsearch.pool.max-conn-total:100}") int maxConnTotal,
+            @Value("${elasticsearch.pool.max-conn-per-route:50}") int maxConnPerRoute,
+            @Value("${elasticsearch.pool.keep-alive-seconds:60}") long keepAliveSeconds,
+            @Value("${elasticsearch.connect-timeout-ms:1000}") int connectTimeoutMs,
+            @Value("${elasticsearch.socket-timeout-ms:30000}") int socketTimeoutMs,
+            @Value("${elasticsearch.health.interval-seconds:5}") long healthCheckIntervalSeconds,
+            @Value("${elasticsearch.circuit-breaker.failure-threshold:3}") int failureThreshold,
+            @Value("${elasticsearch.circuit-breaker.open-seconds:10}") long openSeconds,
+            @Value("${elasticsearch.bulk.max-actions:500}") int bulkMaxActions,
+            @Value("${elasticsearch.bulk.max-bytes:5242880}") long bulkMaxBytes,
+            @Value("${elasticsearch.bulk.flush-interval-ms:1000}") long bulkFlushIntervalMs,
+            @Value("${elasticsearch.bulk.concurrent-requests:4}") int bulkConcurrentRequests,
+            @Value("${elasticsearch.bulk.max-retries:3}") int bulkMaxRetries,
+            @Value("${elasticsearch.bulk.initial-backoff-ms:200}") long bulkInitialBackoffMs) {
         
+        // 질의마다 새 연결을 맺지 않도록 풀 크기와 keep-alive 를 명시 (기본값은 route 당 10 연결)
+        long keepAliveMillis = TimeUnit.SECONDS.toMillis(keepAliveSeconds);
         RestClient restClient = RestClient.builder(
                 new HttpHost(host, port, "http")
-        ).build();
+        )
+                .setRequestConfigCallback(requestConfig -> requestConfig
+                        .setConnectTimeout(connectTimeoutMs)
+                        .setSocketTimeout(socketTimeoutMs))
+                .setHttpClientConfigCallback(httpClient -> httpClient
+                        .setMaxConnTotal(maxConnTotal)
+                        .setMaxConnPerRoute(maxConnPerRoute)
+                        .setKeepAliveStrategy((response, context) -> keepAliveMillis))
+                .build();
         
         this.objectMapper = new ObjectMapper();
         ElasticsearchTransport transport = new RestClientTransport(
@@ -45,31 +122,231 @@ public class ElasticsearchVectorStore implements VectorStoreService {
         );
         
         this.client = new ElasticsearchClient(transport);
+        this.bulkIndexer = new BulkIndexer(new ElasticsearchAsyncClient(transport), indexName,
+                bulkMaxActions, bulkMaxBytes, bulkFlushIntervalMs, bulkConcurrentRequests,
+                bulkMaxRetries, bulkInitialBackoffMs);
         this.indexName = indexName;
+        this.embeddingDims = embeddingDims;
+        this.contentAnalyzer = contentAnalyzer;
+        this.numCandidatesFactor = numCandidatesFactor;
+        this.migrateOnStartup = migrateOnStartup;
+        this.hybridWindowFactor = hybridWindowFactor;
+        this.rrfK = rrfK;
+        this.circuitBreaker = new CircuitBreaker("elasticsearch", failureThreshold, TimeUnit.SECONDS.toMillis(openSeconds));
+        this.healthCheckIntervalSeconds = Math.max(1, healthCheckIntervalSeconds);
         
-        log.info("Initialized Elasticsearch vector store at {}:{} with index: {}", host, port, indexName);
+        log.info("Initialized Elasticsearch vector store at {}:{} with index: {} (pool {}/{} per route, keep-alive {}s)",
+                host, port, indexName, maxConnTotal, maxConnPerRoute, keepAliveSeconds);
     }
     
     @PostConstruct
     public void init() {
+        ensureIndex();
+        healthMonitor.scheduleWithFixedDelay(this::checkHealth,
+                healthCheckIntervalSeconds, healthCheckIntervalSeconds, TimeUnit.SECONDS);
+    }
+    
+    /**
+     * 템플릿 / 인덱스 준비가 끝까지 성공했을 때만 indexReady 를 세워, 실패하면 다음 헬스 체크에서 다시 시도합니다.
+     */
+    private void ensureIndex() {
+        boolean reachable;
+        String reason = "ping returned false";
         try {
             // Test connection first
-            client.ping();
+            reachable = client.ping().value();
+        } catch (Exception e) {
+            reachable = false;
+            reason = e.getMessage();
+        }
+        if (!reachable) {
+            circuitBreaker.trip();
+            log.warn("Elasticsearch is not available at initialization. Will retry when the health check succeeds: {}",
+                    reason);
+            // Don't throw exception - allow the service to start
+            return;
+        }
+        
+        try {
+            putIndexTemplate();
             
             if (!client.indices().exists(e -> e.index(indexName)).value()) {
-                // Index will be auto-created with dynamic mapping
-                log.info("Index {} will be created with dynamic mapping on first document", indexName);
+                client.indices().create(c -> c.index(indexName));
+                log.info("Created index {} with dense_vector mapping ({} dims)", indexName, embeddingDims);
+            } else if (!hasKnnMapping()) {
+                if (migrateOnStartup) {
+                    migrateIndex();
+                } else {
+                    log.warn("Index {} has no indexed dense_vector mapping; kNN search will fail until migrateIndex() is run " +
+                            "(set elasticsearch.migrate-on-startup=true to migrate automatically)", indexName);
+                }
             } else {
                 log.info("Index {} already exists", indexName);
             }
+            indexReady = true;
         } catch (Exception e) {
-            log.warn("Elasticsearch is not available at initialization. Will retry on first use: {}", e.getMessage());
-            // Don't throw exception - allow the service to start
+            log.error("Failed to prepare index {}, will retry on the next health check: {}", indexName, e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * 질의 경로에서 ping 을 하지 않는 대신 주기적으로 클러스터 상태를 확인해 서킷 브레이커에 반영합니다.
+     * 시작 시점에 ES 가 없어 인덱스를 만들지 못했다면 복구되는 시점에 다시 시도합니다.
+     */
+    private void checkHealth() {
+        boolean available;
+        try {
+            available = client.ping().value();
+        } catch (Exception e) {
+            available = false;
+        }
+        
+        if (!available) {
+            if (circuitBreaker.getState() != CircuitBreaker.State.OPEN) {
+                log.warn("Elasticsearch health check failed, failing searches fast until it recovers");
+            }
+            circuitBreaker.trip();
+            return;
+        }
+        
+        circuitBreaker.recordSuccess();
+        if (!indexReady) {
+            ensureIndex();
+        }
+    }
+    
+    public boolean isAvailable() {
+        return circuitBreaker.getState() != CircuitBreaker.State.OPEN;
+    }
+    
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        bulkIndexer.close();
+        healthMonitor.shutdownNow();
+        searchExecutor.shutdownNow();
+    }
+    
+    /**
+     * 기존 동적 매핑 인덱스를 dense_vector 매핑 인덱스로 재색인합니다.
+     * 새 버전 인덱스로 reindex 후, 기존 인덱스에서 alias 를 떼고 새 인덱스에 붙이는 작업을 한 번의 updateAliases 로
+     * 처리해 인덱스 이름이 비어 있는 구간이 없도록 합니다. 이전 마이그레이션으로 indexName 이 이미 alias 이면
+     * 그 뒤의 실제 인덱스를 옮깁니다. 재색인하는 동안 쓰기는 대기하고 검색은 기존 인덱스로 계속됩니다.
+     */
+    public void migrateIndex() {
+        String targetIndex = indexName + "-v" + System.currentTimeMillis();
+        migrationLock.writeLock().lock();
+        try {
+            if (!bulkIndexer.drain(MIGRATION_DRAIN_TIMEOUT)) {
+                throw new RuntimeException("Index migration aborted: pending bulk writes did not finish");
+            }
+            List<String> sourceIndices = resolveIndices();
+            boolean aliased = !sourceIndices.equals(List.of(indexName));
+            log.info("Migrating index {} ({}) to {} with dense_vector mapping", indexName, sourceIndices, targetIndex);
+            
+            putIndexTemplate();
+            client.indices().create(c -> c.index(targetIndex));
+            
+            ReindexResponse reindex = client.reindex(r -> r
+                    .source(src -> src.index(indexName))
+                    .dest(dst -> dst.index(targetIndex))
+                    .waitForCompletion(true)
+                    .refresh(true)
+            );
+            
+            if (reindex.failures() != null && !reindex.failures().isEmpty()) {
+                log.error("Reindex into {} had {} failures, keeping {}", targetIndex, reindex.failures().size(), indexName);
+                client.indices().delete(d -> d.index(targetIndex));
+                throw new RuntimeException("Index migration failed: reindex had failures");
+            }
+            
+            client.indices().updateAliases(u -> {
+                for (String source : sourceIndices) {
+                    // 실제 인덱스 이름이면 같은 이름의 alias 를 만들 수 없으므로 인덱스를 지운다
+                    u.actions(a -> aliased
+                            ? a.remove(r -> r.index(source).alias(indexName))
+                            : a.removeIndex(r -> r.index(source)));
+                }
+                return u.actions(a -> a.add(add -> add.index(targetIndex).alias(indexName)));
+            });
+            if (aliased) {
+                client.indices().delete(d -> d.index(sourceIndices));
+            }
+            
+            log.info("Migrated {} documents from {} into {} (aliased as {})",
+                    reindex.total(), sourceIndices, targetIndex, indexName);
+        } catch (IOException e) {
+            log.error("Failed to migrate index", e);
+            throw new RuntimeException("Failed to migrate index", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Index migration interrupted", e);
+        } finally {
+            migrationLock.writeLock().unlock();
         }
     }
     
+    /**
+     * indexName 이 alias 면 그 뒤의 실제 인덱스들을, 아니면 indexName 자체를 돌려줍니다.
+     */
+    private List<String> resolveIndices() throws IOException {
+        if (!client.indices().existsAlias(e -> e.name(indexName)).value()) {
+            return List.of(indexName);
+        }
+        return new ArrayList<>(client.indices().getAlias(g -> g.name(indexName)).result().keySet());
+    }
+    
+    private void putIndexTemplate() throws IOException {
+        TypeMapping mapping = buildMapping();
+        client.indices().putIndexTemplate(t -> t
+                .name(indexName + "-template")
+                .indexPatterns(indexName, indexName + "-v*")
+                .template(tm -> tm.mappings(mapping))
+        );
+        log.debug("Put index template {}-template", indexName);
+    }
+    
+    private TypeMapping buildMapping() {
+        return TypeMapping.of(m -> m
+                .properties("id", p -> p.keyword(k -> k))
+                .properties("documentId", p -> p.keyword(k -> k))
+                .properties("chunkIndex", p -> p.integer(i -> i))
+                .properties("contentHash", p -> p.keyword(k -> k))
+                .properties("type", p -> p.keyword(k -> k))
+                .properties("content", p -> p.text(t -> t.analyzer(contentAnalyzer)))
+                .properties("embedding", p -> p.denseVector(d -> d
+                        .dims(embeddingDims)
+                        .index(true)
+                        .similarity("cosine")
+                ))
+                .properties("metadata", p -> p.object(o -> o
+                        .properties("source", mp -> mp.keyword(k -> k))
+                        .properties("filename", mp -> mp.text(t -> t
+                                .analyzer(contentAnalyzer)
+                                .fields("keyword", f -> f.keyword(k -> k.ignoreAbove(256)))
+                        ))
+                        .properties("documentType", mp -> mp.keyword(k -> k))
+                        .properties("section", mp -> mp.keyword(k -> k))
+                        .properties("chunkIndex", mp -> mp.integer(i -> i))
+                ))
+        );
+    }
+    
+    private boolean hasKnnMapping() throws IOException {
+        GetMappingResponse response = client.indices().getMapping(g -> g.index(indexName));
+        return response.result().values().stream()
+                .map(record -> record.mappings().properties().get("embedding"))
+                .allMatch(property -> property != null
+                        && property.isDenseVector()
+                        && Boolean.TRUE.equals(property.denseVector().index()));
+    }
+    
     @Override
     public void upsert(Chunk chunk) {
+        migrationLock.readLock().lock();
         try {
             Map<String, Object> document = convertChunkToMap(chunk);
             
@@ -83,129 +360,190 @@ public class ElasticsearchVectorStore implements VectorStoreService {
         } catch (IOException e) {
             log.error("Failed to upsert chunk", e);
             throw new RuntimeException("Failed to upsert chunk", e);
+        } finally {
+            migrationLock.readLock().unlock();
         }
     }
     
+    /**
+     * bulk 색인기로 보내고 이 배치가 모두 색인될 때까지 기다립니다.
+     */
     @Override
     public void upsertBatch(List<Chunk> chunks) {
+        CompletableFuture<Void> result = upsertBatchAsync(chunks);
+        bulkIndexer.flush();
         try {
-            BulkRequest.Builder bulkBuilder = new BulkRequest.Builder();
-            
-            for (Chunk chunk : chunks) {
-                Map<String, Object> document = convertChunkToMap(chunk);
-                bulkBuilder.operations(op -> op
-                        .index(idx -> idx
-                                .index(indexName)
-                                .id(chunk.getId())
-                                .document(document)
-                        )
-                );
-            }
-            
-            BulkResponse result = client.bulk(bulkBuilder.build());
-            
-            if (result.errors()) {
-                log.error("Bulk upsert had errors");
-            } else {
-                log.info("Successfully upserted {} chunks", chunks.size());
-            }
-        } catch (IOException e) {
-            log.error("Failed to bulk upsert chunks", e);
-            throw new RuntimeException("Failed to bulk upsert chunks", e);
+            result.join();
+            log.info("Successfully upserted {} chunks", chunks.size());
+        } catch (CompletionException e) {
+            log.error("Failed to bulk upsert chunks", e.getCause());
+            throw new RuntimeException("Failed to bulk upsert chunks", e.getCause());
         }
     }
     
     @Override
-    public List<Chunk> search(String query, List<Float> queryEmbedding, int topK, Map<String, Object> filters) {
+    public CompletableFuture<Void> upsertBatchAsync(List<Chunk> chunks) {
+        CompletableFuture<?>[] results = new CompletableFuture<?>[chunks.size()];
+        // 색인 완료는 기다리지 않는다. migrateIndex 는 잠금을 얻은 뒤 bulk 색인기를 비운다
+        migrationLock.readLock().lock();
         try {
-            // Check if Elasticsearch is available
-            try {
-                client.ping();
-            } catch (Exception e) {
-                log.warn("Elasticsearch is not available for search: {}", e.getMessage());
-                return new ArrayList<>(); // Return empty list if ES is down
+            for (int i = 0; i < chunks.size(); i++) {
+                Chunk chunk = chunks.get(i);
+                results[i] = bulkIndexer.add(chunk.getId(), convertChunkToMap(chunk), estimateBytes(chunk));
             }
-            
-            // Use script_score query for vector similarity search
-            Query scriptScoreQuery = ScriptScoreQuery.of(s -> s
-                    .query(MatchAllQuery.of(m -> m)._toQuery())
-                    .script(sc -> sc
-                            .inline(i -> i
-                                    .source("cosineSimilarity(params.query_vector, 'embedding') + 1.0")
-                                    .params("query_vector", JsonData.of(queryEmbedding))
-                            )
-                    )
-                    .minScore(0.0f)
-            )._toQuery();
-            
-            SearchResponse<Map> response = client.search(s -> s
-                    .index(indexName)
-                    .query(scriptScoreQuery)
-                    .size(topK),
-                    Map.class
-            );
-            
-            return response.hits().hits().stream()
-                    .map(this::mapHitToChunk)
-                    .collect(Collectors.toList());
-            
+        } finally {
+            migrationLock.readLock().unlock();
+        }
+        return CompletableFuture.allOf(results);
+    }
+    
+    @Override
+    public void flush() {
+        bulkIndexer.flush();
+    }
+    
+    @Override
+    public List<ScoredChunk> search(String query, float[] queryEmbedding, int topK, Double minScore,
+                                    Map<String, Object> filters, Projection projection) {
+        if (!circuitBreaker.allowRequest()) {
+            log.debug("Elasticsearch circuit is open, skipping search");
+            return new ArrayList<>(); // Return empty list if ES is down
+        }
+        try {
+            List<ScoredChunk> results = knnSearch(queryEmbedding, topK, minScore, filters, projection);
+            circuitBreaker.recordSuccess();
+            return results;
         } catch (IOException e) {
-            log.error("Failed to search chunks", e);
-            throw new RuntimeException("Failed to search chunks", e);
+            // 연결 실패는 ES 다운으로 보고 빈 결과를 돌려준다 (쿼리 오류는 ElasticsearchException 으로 그대로 전파)
+            circuitBreaker.recordFailure();
+            log.warn("Elasticsearch is not available for search: {}", e.getMessage());
+            return new ArrayList<>();
         }
     }
     
+    /**
+     * BM25 상위 N 개와 kNN 상위 N 개를 동시에 조회해 Reciprocal Rank Fusion 으로 합칩니다.
+     * 두 점수를 한 쿼리에서 더하면 스케일이 달라 한쪽이 순위를 지배하므로 순위 기반으로 결합합니다.
+     * 서킷 브레이커는 하이브리드 요청 단위로 한 번만 확인하고 기록합니다 (HALF_OPEN 의 시험 요청이 하나뿐이므로).
+     */
     @Override
-    public List<Chunk> hybridSearch(String query, List<Float> queryEmbedding, int topK, Map<String, Object> filters) {
+    public List<ScoredChunk> hybridSearch(String query, float[] queryEmbedding, int topK, Double minScore,
+                                          Map<String, Object> filters, Projection projection) {
+        if (!circuitBreaker.allowRequest()) {
+            log.debug("Elasticsearch circuit is open, skipping hybrid search");
+            return new ArrayList<>();
+        }
+        int window = Math.max(topK, topK * hybridWindowFactor);
+        
+        CompletableFuture<List<ScoredChunk>> lexical = CompletableFuture.supplyAsync(
+                () -> unchecked(() -> matchSearch(query, window, null, filters, projection)), searchExecutor);
+        CompletableFuture<List<ScoredChunk>> vector = CompletableFuture.supplyAsync(
+                () -> unchecked(() -> knnSearch(queryEmbedding, window, minScore, filters, projection)), searchExecutor);
+        
         try {
-            // Check if Elasticsearch is available
-            try {
-                client.ping();
-            } catch (Exception e) {
-                log.warn("Elasticsearch is not available for hybrid search: {}", e.getMessage());
-                return new ArrayList<>(); // Return empty list if ES is down
+            List<ScoredChunk> fused = RankFusion.reciprocalRank(rrfK, topK, lexical.join(), vector.join());
+            circuitBreaker.recordSuccess();
+            log.debug("Hybrid search fused {} results (window {})", fused.size(), window);
+            return fused;
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) {
+                circuitBreaker.recordFailure();
+                log.warn("Elasticsearch is not available for hybrid search: {}", io.getCause().getMessage());
+                return new ArrayList<>();
             }
-            Query textQuery = MatchQuery.of(m -> m
-                    .field("content")
-                    .query(query)
-            )._toQuery();
-            
-            // For hybrid search, combine script_score with text search
-            Query scriptScoreQuery = ScriptScoreQuery.of(s -> s
-                    .query(MatchAllQuery.of(m -> m)._toQuery())
-                    .script(sc -> sc
-                            .inline(i -> i
-                                    .source("cosineSimilarity(params.query_vector, 'embedding') + 1.0")
-                                    .params("query_vector", JsonData.of(queryEmbedding))
-                            )
-                    )
-                    .minScore(0.0f)
-            )._toQuery();
-            
-            Query hybridQuery = BoolQuery.of(b -> b
-                    .should(textQuery, scriptScoreQuery)
-                    .minimumShouldMatch("1")
-            )._toQuery();
-            
-            SearchResponse<Map> response = client.search(s -> s
-                    .index(indexName)
-                    .query(hybridQuery)
-                    .size(topK),
-                    Map.class
-            );
-            
-            return response.hits().hits().stream()
-                    .map(this::mapHitToChunk)
-                    .collect(Collectors.toList());
-            
+            log.error("Failed to perform hybrid search", e.getCause());
+            throw new RuntimeException("Failed to perform hybrid search", e.getCause());
+        }
+    }
+    
+    @Override
+    public List<ScoredChunk> lexicalSearch(String query, int topK, Double minScore,
+                                           Map<String, Object> filters, Projection projection) {
+        if (!circuitBreaker.allowRequest()) {
+            log.debug("Elasticsearch circuit is open, skipping lexical search");
+            return new ArrayList<>(); // Return empty list if ES is down
+        }
+        try {
+            List<ScoredChunk> results = matchSearch(query, topK, minScore, filters, projection);
+            circuitBreaker.recordSuccess();
+            return results;
         } catch (IOException e) {
-            log.error("Failed to perform hybrid search", e);
-            throw new RuntimeException("Failed to perform hybrid search", e);
+            circuitBreaker.recordFailure();
+            log.warn("Elasticsearch is not available for lexical search: {}", e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+    
+    /**
+     * Approximate kNN over the indexed dense_vector field, filters applied during the graph search.
+     * 서킷 브레이커는 호출자가 처리합니다.
+     */
+    private List<ScoredChunk> knnSearch(float[] queryEmbedding, int topK, Double minScore,
+                                        Map<String, Object> filters, Projection projection) throws IOException {
+        List<Query> filterQueries = buildFilters(filters);
+        SearchResponse<ChunkSource> response = client.search(s -> s
+                .index(indexName)
+                .knn(k -> k
+                        .field("embedding")
+                        .queryVector(Vectors.asList(queryEmbedding))
+                        .k((long) topK)
+                        .numCandidates((long) numCandidates(topK))
+                        .filter(filterQueries)
+                        .similarity(minScore != null ? minScore.floatValue() : null)
+                )
+                .source(sourceConfig(projection))
+                .size(topK),
+                ChunkSource.class
+        );
+        
+        // cosine 매핑의 kNN _score 는 (1 + cos) / 2 이므로 코사인 유사도로 되돌린다
+        return response.hits().hits().stream()
+                .map(ElasticsearchVectorStore::toScoredChunk)
+                .map(result -> new ScoredChunk(result.chunk(), 2 * result.score() - 1))
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * content 필드 BM25 검색. 서킷 브레이커는 호출자가 처리합니다.
+     */
+    private List<ScoredChunk> matchSearch(String query, int topK, Double minScore,
+                                          Map<String, Object> filters, Projection projection) throws IOException {
+        List<Query> filterQueries = buildFilters(filters);
+        SearchResponse<ChunkSource> response = client.search(s -> s
+                .index(indexName)
+                .query(q -> q.bool(b -> b
+                        .must(m -> m.match(mt -> mt
+                                .field("content")
+                                .query(query)
+                        ))
+                        .filter(filterQueries)
+                ))
+                .minScore(minScore)
+                .source(sourceConfig(projection))
+                .size(topK),
+                ChunkSource.class
+        );
+        
+        return response.hits().hits().stream()
+                .map(ElasticsearchVectorStore::toScoredChunk)
+                .collect(Collectors.toList());
+    }
+    
+    private interface SearchCall {
+        List<ScoredChunk> execute() throws IOException;
+    }
+    
+    private static List<ScoredChunk> unchecked(SearchCall call) {
+        try {
+            return call.execute();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
     
     @Override
     public void delete(String chunkId) {
+        migrationLock.readLock().lock();
         try {
             client.delete(d -> d
                     .index(indexName)
@@ -214,11 +552,14 @@ public class ElasticsearchVectorStore implements VectorStoreService {
             log.debug("Deleted chunk: {}", chunkId);
         } catch (IOException e) {
             log.error("Failed to delete chunk", e);
+        } finally {
+            migrationLock.readLock().unlock();
         }
     }
     
     @Override
     public void deleteByDocumentId(String documentId) {
+        migrationLock.readLock().lock();
         try {
             client.deleteByQuery(d -> d
                     .index(indexName)
@@ -232,9 +573,78 @@ public class ElasticsearchVectorStore implements VectorStoreService {
             log.info("Deleted all chunks for document: {}", documentId);
         } catch (IOException e) {
             log.error("Failed to delete chunks by document ID", e);
+        } finally {
+            migrationLock.readLock().unlock();
         }
     }
     
+    @Override
+    public void deleteBatch(Collection<String> chunkIds) {
+        if (chunkIds.isEmpty()) {
+            return;
+        }
+        migrationLock.readLock().lock();
+        try {
+            BulkRequest.Builder bulkBuilder = new BulkRequest.Builder();
+            for (String chunkId : chunkIds) {
+                bulkBuilder.operations(op -> op
+                        .delete(d -> d
+                                .index(indexName)
+                                .id(chunkId)
+                        )
+                );
+            }
+            
+            BulkResponse result = client.bulk(bulkBuilder.build());
+            if (result.errors()) {
+                log.error("Bulk delete had errors");
+            } else {
+                log.debug("Deleted {} chunks", chunkIds.size());
+            }
+        } catch (IOException e) {
+            log.error("Failed to bulk delete chunks", e);
+            throw new RuntimeException("Failed to bulk delete chunks", e);
+        } finally {
+            migrationLock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public Map<String, String> getChunkHashes(String documentId) {
+        Map<String, String> hashes = new HashMap<>();
+        try {
+            List<FieldValue> searchAfter = null;
+            while (true) {
+                List<FieldValue> after = searchAfter;
+                SearchResponse<Map> response = client.search(s -> {
+                    s.index(indexName)
+                            .query(q -> q.term(t -> t.field("documentId").value(documentId)))
+                            .source(src -> src.filter(f -> f.includes("contentHash")))
+                            .sort(so -> so.field(f -> f.field("id")))
+                            .size(CHUNK_HASH_PAGE_SIZE);
+                    if (after != null) {
+                        s.searchAfter(after);
+                    }
+                    return s;
+                }, Map.class);
+                
+                List<Hit<Map>> hits = response.hits().hits();
+                for (Hit<Map> hit : hits) {
+                    Object hash = hit.source() != null ? hit.source().get("contentHash") : null;
+                    hashes.put(hit.id(), hash != null ? hash.toString() : null);
+                }
+                if (hits.size() < CHUNK_HASH_PAGE_SIZE) {
+                    break;
+                }
+                searchAfter = hits.get(hits.size() - 1).sort();
+            }
+        } catch (IOException e) {
+            log.error("Failed to load chunk hashes for document", e);
+            throw new RuntimeException("Failed to load chunk hashes", e);
+        }
+        return hashes;
+    }
+    
     @Override
     public boolean exists(String chunkId) {
         try {
@@ -261,7 +671,8 @@ public class ElasticsearchVectorStore implements VectorStoreService {
     @Override
     public void createCollection(String collectionName) {
         try {
-            client.indices().create(c -> c.index(collectionName));
+            TypeMapping mapping = buildMapping();
+            client.indices().create(c -> c.index(collectionName).mappings(mapping));
         } catch (IOException e) {
             log.error("Failed to create collection", e);
         }
@@ -276,26 +687,120 @@ public class ElasticsearchVectorStore implements VectorStoreService {
         }
     }
     
+    /**
+     * 검색 필터를 ES filter 절로 변환합니다 (규칙은 SearchFilters 참고). 점수에는 영향을 주지 않습니다.
+     */
+    private List<Query> buildFilters(Map<String, Object> filters) {
+        if (SearchFilters.isEmpty(filters)) {
+            return List.of();
+        }
+        List<Query> queries = new ArrayList<>();
+        filters.forEach((key, value) -> {
+            if (value == null) {
+                return;
+            }
+            String field = SearchFilters.fieldPath(key);
+            if (KEYWORD_SUBFIELDS.contains(field)) {
+                field = field + ".keyword";
+            }
+            String target = field;
+            if (SearchFilters.isRange(value)) {
+                Map<?, ?> bounds = (Map<?, ?>) value;
+                queries.add(RangeQuery.of(r -> {
+                    r.field(target);
+                    bounds.forEach((op, bound) -> {
+                        JsonData json = JsonData.of(bound);
+                        switch (op.toString()) {
+                            case "gte" -> r.gte(json);
+                            case "gt" -> r.gt(json);
+                            case "lte" -> r.lte(json);
+                            default -> r.lt(json);
+                        }
+                    });
+                    return r;
+                })._toQuery());
+            } else if (value instanceof Collection<?> values) {
+                List<FieldValue> terms = values.stream().map(ElasticsearchVectorStore::toFieldValue).collect(Collectors.toList());
+                queries.add(TermsQuery.of(t -> t.field(target).terms(v -> v.value(terms)))._toQuery());
+            } else {
+                queries.add(TermQuery.of(t -> t.field(target).value(toFieldValue(value)))._toQuery());
+            }
+        });
+        return queries;
+    }
+    
+    private static FieldValue toFieldValue(Object value) {
+        if (value instanceof Boolean b) {
+            return FieldValue.of(b);
+        }
+        if (value instanceof Integer || value instanceof Long || value instanceof Short) {
+            return FieldValue.of(((Number) value).longValue());
+        }
+        if (value instanceof Number n) {
+            return FieldValue.of(n.doubleValue());
+        }
+        return FieldValue.of(value.toString());
+    }
+    
+    private int numCandidates(int topK) {
+        return Math.min(Math.max(topK * numCandidatesFactor, topK), 10000);
+    }
+    
+    /**
+     * bulk 요청 크기 판단용 추정치. 벡터 성분은 JSON 숫자로 약 12바이트, 본문은 UTF-8 로 글자당 최대 3바이트.
+     */
+    private static long estimateBytes(Chunk chunk) {
+        long bytes = 256;
+        if (chunk.getContent() != null) {
+            bytes += chunk.getContent().length() * 3L;
+        }
+        if (chunk.getEmbedding() != null) {
+            bytes += chunk.getEmbedding().length * 12L;
+        }
+        return bytes;
+    }
+    
     private Map<String, Object> convertChunkToMap(Chunk chunk) {
         Map<String, Object> map = new HashMap<>();
         map.put("id", chunk.getId());
         map.put("documentId", chunk.getDocumentId());
         map.put("content", chunk.getContent());
         map.put("chunkIndex", chunk.getChunkIndex());
-        map.put("embedding", chunk.getEmbedding());
+        map.put("contentHash", chunk.getContentHash());
+        map.put("type", chunk.getType() != null ? chunk.getType().name() : null);
+        map.put("embedding", chunk.getEmbedding()); // float[] 그대로 직렬화
         map.put("metadata", chunk.getMetadata());
         return map;
     }
     
-    private Chunk mapHitToChunk(Hit<Map> hit) {
-        Map source = hit.source();
-        return Chunk.builder()
-                .id((String) source.get("id"))
-                .documentId((String) source.get("documentId"))
-                .content((String) source.get("content"))
-                .chunkIndex((Integer) source.get("chunkIndex"))
-                .embedding((List<Float>) source.get("embedding"))
-                .metadata((Map<String, Object>) source.get("metadata"))
+    private static SourceConfig sourceConfig(Projection projection) {
+        if (projection.includesEmbedding()) {
+            return SourceConfig.of(src -> src.fetch(true));
+        }
+        return SourceConfig.of(src -> src.filter(f -> f
+                .includes(projection.includes())
+                .excludes(projection.excludes())));
+    }
+    
+    private static ScoredChunk toScoredChunk(Hit<ChunkSource> hit) {
+        ChunkSource source = hit.source();
+        Chunk chunk = Chunk.builder()
+                .id(source.id())
+                .documentId(source.documentId())
+                .content(source.content())
+                .chunkIndex(source.chunkIndex())
+                .contentHash(source.contentHash())
+                .type(source.type())
+                .embedding(source.embedding())
+                .metadata(source.metadata())
                 .build();
+        return new ScoredChunk(chunk, hit.score() != null ? hit.score() : 0.0);
     }
+    
+    /**
+     * 검색 히트의 _source. Map 을 거치지 않고 바로 역직렬화하며, projection 으로 빠진 필드는 null 입니다.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record ChunkSource(String id, String documentId, String content, Integer chunkIndex, String contentHash,
+                       Chunk.ChunkType type, float[] embedding, Map<String, Object> metadata) {}
 }
\ No newline at end of file
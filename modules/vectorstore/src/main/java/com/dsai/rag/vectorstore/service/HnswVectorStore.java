@@ -0,0 +1,500 @@
+package com.dsai.rag.vectorstore.service;
+
+import com.dsai.rag.model.Chunk;
+import com.dsai.rag.vectorstore.hnsw.HnswIndex;
+import com.dsai.rag.vectorstore.search.Projection;
+import com.dsai.rag.vectorstore.search.ScoredChunk;
+import com.dsai.rag.vectorstore.search.SearchFilters;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * JVM 내부 HNSW 그래프 기반 벡터 저장소
+ * vectorstore.type=hnsw 일 때 ElasticsearchVectorStore 대신 사용되며,
+ * 주기적으로 / 종료 시 디스크에 스냅샷을 저장하고 기동 시 복원합니다.
+ * 삭제 / 재색인으로 삭제 처리된 노드 비율이 임계값을 넘으면 백그라운드에서 새 그래프를 만들어 교체합니다.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "vectorstore.type", havingValue = "hnsw")
+public class HnswVectorStore implements VectorStoreService {
+
+    private static final double COMPACTION_THRESHOLD = 0.3;
+
+    private final int m;
+    private final int efConstruction;
+    private final Map<String, Chunk> chunks = new HashMap<>();
+    private final Map<String, Set<String>> chunksByDocument = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // 스냅샷끼리는 같은 임시 파일을 쓰므로 따로 직렬화한다 (그래프 잠금은 읽기 잠금만 잡는다)
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Path snapshotPath;
+    private final int efSearch;
+    private final int snapshotIntervalSeconds;
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
+    private final AtomicBoolean compacting = new AtomicBoolean(false);
+    private final ExecutorService compactionExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "hnsw-compaction");
+        t.setDaemon(true);
+        return t;
+    });
+    private ScheduledExecutorService snapshotScheduler;
+
+    // 아래 필드는 lock 으로 보호
+    private HnswIndex index;
+    private List<Consumer<HnswIndex>> compactionLog; // 압축 중에 들어온 변경 (새 그래프에 다시 적용)
+    private long generation; // clearAll 마다 증가, 압축 도중 전체 교체가 있었는지 확인용
+
+    public HnswVectorStore(
+            @Value("${vectorstore.hnsw.path:./data/hnsw}") String path,
+            @Value("${elasticsearch.index:rag-chunks}") String indexName,
+            @Value("${vectorstore.hnsw.m:16}") int m,
+            @Value("${vectorstore.hnsw.ef-construction:200}") int efConstruction,
+            @Value("${vectorstore.hnsw.ef-search:100}") int efSearch,
+            @Value("${vectorstore.hnsw.snapshot-interval-seconds:300}") int snapshotIntervalSeconds) {
+
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.index = new HnswIndex(m, efConstruction);
+        this.snapshotPath = Path.of(path).resolve(indexName + ".hnsw");
+        this.efSearch = efSearch;
+        this.snapshotIntervalSeconds = snapshotIntervalSeconds;
+
+        log.info("Initialized HNSW vector store at {} (M={}, efConstruction={}, efSearch={})",
+                snapshotPath, m, efConstruction, efSearch);
+    }
+
+    @PostConstruct
+    public void init() {
+        if (Files.exists(snapshotPath)) {
+            try {
+                load();
+                log.info("Loaded HNSW snapshot {} with {} chunks", snapshotPath, index.size());
+            } catch (IOException e) {
+                log.warn("Failed to load HNSW snapshot {}, starting empty: {}", snapshotPath, e.getMessage());
+                clearAll();
+            }
+        } else {
+            log.info("No HNSW snapshot at {}, starting empty", snapshotPath);
+        }
+
+        if (snapshotIntervalSeconds > 0) {
+            snapshotScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "hnsw-snapshot");
+                t.setDaemon(true);
+                return t;
+            });
+            snapshotScheduler.scheduleWithFixedDelay(this::snapshotIfDirty,
+                    snapshotIntervalSeconds, snapshotIntervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (snapshotScheduler != null) {
+            snapshotScheduler.shutdownNow();
+        }
+        compactionExecutor.shutdownNow();
+        snapshotIfDirty();
+    }
+
+    @Override
+    public void upsert(Chunk chunk) {
+        lock.writeLock().lock();
+        try {
+            put(chunk);
+            markDirty();
+            log.debug("Upserted chunk: {}", chunk.getId());
+        } finally {
+            lock.writeLock().unlock();
+        }
+        compactIfNeeded();
+    }
+
+    @Override
+    public void upsertBatch(List<Chunk> batch) {
+        lock.writeLock().lock();
+        try {
+            for (Chunk chunk : batch) {
+                put(chunk);
+            }
+            markDirty();
+            log.info("Successfully upserted {} chunks", batch.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+        compactIfNeeded();
+    }
+
+    /**
+     * 임베딩은 그래프에만 있고 청크 사본에는 없으므로 projection 과 상관없이 임베딩 없이 돌려줍니다.
+     */
+    @Override
+    public List<ScoredChunk> search(String query, float[] queryEmbedding, int topK, Double minScore,
+                                    Map<String, Object> filters, Projection projection) {
+        lock.readLock().lock();
+        try {
+            List<ScoredChunk> results = new ArrayList<>();
+            Predicate<String> filter = SearchFilters.isEmpty(filters) ? null
+                    : chunkId -> SearchFilters.matches(chunks.get(chunkId), filters);
+            for (HnswIndex.SearchResult result : index.search(queryEmbedding, topK, efSearch, filter)) {
+                // 결과는 유사도 내림차순이므로 minScore 미만이 나오면 나머지도 모두 미만
+                if (minScore != null && result.score() < minScore) {
+                    break;
+                }
+                Chunk chunk = chunks.get(result.label());
+                if (chunk != null) {
+                    results.add(new ScoredChunk(copyOf(chunk), result.score()));
+                }
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<ScoredChunk> hybridSearch(String query, float[] queryEmbedding, int topK, Double minScore,
+                                          Map<String, Object> filters, Projection projection) {
+        // 렉시컬 인덱스가 없으므로 벡터 검색으로 대체
+        log.debug("HNSW store has no lexical index, hybrid search falls back to vector search");
+        return search(query, queryEmbedding, topK, minScore, filters, projection);
+    }
+
+    @Override
+    public List<ScoredChunk> lexicalSearch(String query, int topK, Double minScore,
+                                           Map<String, Object> filters, Projection projection) {
+        log.warn("HNSW store has no lexical index, BM25 search returns no results");
+        return new ArrayList<>();
+    }
+
+    @Override
+    public void delete(String chunkId) {
+        lock.writeLock().lock();
+        try {
+            if (removeChunk(chunkId)) {
+                markDirty();
+                log.debug("Deleted chunk: {}", chunkId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        compactIfNeeded();
+    }
+
+    @Override
+    public void deleteByDocumentId(String documentId) {
+        lock.writeLock().lock();
+        try {
+            Set<String> chunkIds = chunksByDocument.remove(documentId);
+            if (chunkIds != null) {
+                for (String chunkId : chunkIds) {
+                    removeFromIndex(chunkId);
+                    chunks.remove(chunkId);
+                }
+                markDirty();
+            }
+            log.info("Deleted all chunks for document: {}", documentId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        compactIfNeeded();
+    }
+
+    @Override
+    public void deleteBatch(Collection<String> chunkIds) {
+        lock.writeLock().lock();
+        try {
+            boolean removed = false;
+            for (String chunkId : chunkIds) {
+                removed |= removeChunk(chunkId);
+            }
+            if (removed) {
+                markDirty();
+            }
+            log.debug("Deleted {} chunks", chunkIds.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+        compactIfNeeded();
+    }
+
+    @Override
+    public Map<String, String> getChunkHashes(String documentId) {
+        lock.readLock().lock();
+        try {
+            Map<String, String> hashes = new HashMap<>();
+            for (String chunkId : chunksByDocument.getOrDefault(documentId, Set.of())) {
+                hashes.put(chunkId, chunks.get(chunkId).getContentHash());
+            }
+            return hashes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean exists(String chunkId) {
+        lock.readLock().lock();
+        try {
+            return index.contains(chunkId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long count() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void createCollection(String collectionName) {
+        // 단일 인메모리 그래프만 관리하므로 별도 컬렉션 생성은 필요 없음
+        log.debug("HNSW store uses a single in-memory collection, ignoring create: {}", collectionName);
+    }
+
+    @Override
+    public void deleteCollection(String collectionName) {
+        lock.writeLock().lock();
+        try {
+            clearAll();
+            markDirty();
+            log.info("Cleared HNSW collection: {}", collectionName);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 현재 그래프와 청크를 디스크에 저장합니다. 임시 파일에 쓴 뒤 원자적으로 교체합니다.
+     * 읽기 잠금만 잡으므로 저장하는 동안 검색은 계속되고, 쓰기만 저장이 끝날 때까지 기다립니다.
+     */
+    public void snapshot() {
+        snapshotLock.lock();
+        lock.readLock().lock();
+        try {
+            Files.createDirectories(snapshotPath.getParent());
+            Path tempFile = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                index.writeTo(out);
+                out.writeInt(chunks.size());
+                for (Chunk chunk : chunks.values()) {
+                    byte[] payload = objectMapper.writeValueAsBytes(chunk);
+                    out.writeInt(payload.length);
+                    out.write(payload);
+                }
+            }
+            Files.move(tempFile, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty.set(false);
+            log.info("Saved HNSW snapshot {} with {} chunks", snapshotPath, chunks.size());
+        } catch (IOException e) {
+            log.error("Failed to save HNSW snapshot", e);
+            throw new RuntimeException("Failed to save HNSW snapshot", e);
+        } finally {
+            lock.readLock().unlock();
+            snapshotLock.unlock();
+        }
+    }
+
+    /**
+     * 삭제 비율이 임계값을 넘었으면 백그라운드 압축을 한 번만 예약합니다.
+     */
+    private void compactIfNeeded() {
+        boolean needed;
+        lock.readLock().lock();
+        try {
+            needed = index.deletedRatio() >= COMPACTION_THRESHOLD;
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (!needed || !compacting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            compactionExecutor.execute(this::compact);
+        } catch (RejectedExecutionException e) {
+            // 종료 중
+            compacting.set(false);
+        }
+    }
+
+    /**
+     * 살아있는 벡터만으로 새 그래프를 락 밖에서 만든 뒤, 그 사이의 변경을 다시 적용하고 쓰기 락 안에서 교체합니다.
+     * 검색은 새 그래프를 만드는 동안 기존 그래프로 계속 처리됩니다.
+     */
+    private void compact() {
+        try {
+            Map<String, float[]> live;
+            long startGeneration;
+            int before;
+            lock.writeLock().lock();
+            try {
+                if (index.deletedRatio() < COMPACTION_THRESHOLD) {
+                    return;
+                }
+                live = index.liveVectors();
+                before = index.size();
+                startGeneration = generation;
+                compactionLog = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            long startTime = System.currentTimeMillis();
+            HnswIndex rebuilt = new HnswIndex(m, efConstruction);
+            live.forEach(rebuilt::add);
+
+            lock.writeLock().lock();
+            try {
+                if (generation != startGeneration) {
+                    log.info("HNSW collection was replaced during compaction, discarding rebuilt graph");
+                    return;
+                }
+                compactionLog.forEach(change -> change.accept(rebuilt));
+                index = rebuilt;
+                markDirty();
+                log.info("Compacted HNSW graph in {}ms ({} live chunks at start, {} changes replayed)",
+                        System.currentTimeMillis() - startTime, before, compactionLog.size());
+            } finally {
+                compactionLog = null;
+                lock.writeLock().unlock();
+            }
+        } catch (Exception e) {
+            log.warn("HNSW compaction failed: {}", e.getMessage());
+        } finally {
+            compacting.set(false);
+        }
+    }
+
+    private void snapshotIfDirty() {
+        if (!dirty.get()) {
+            return;
+        }
+        try {
+            snapshot();
+        } catch (Exception e) {
+            log.warn("Scheduled HNSW snapshot failed: {}", e.getMessage());
+        }
+    }
+
+    private void load() throws IOException {
+        lock.writeLock().lock();
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(snapshotPath)))) {
+            clearAll();
+            index.readFrom(in);
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                byte[] payload = new byte[in.readInt()];
+                in.readFully(payload);
+                Chunk chunk = objectMapper.readValue(payload, Chunk.class);
+                chunks.put(chunk.getId(), chunk);
+                if (chunk.getDocumentId() != null) {
+                    chunksByDocument.computeIfAbsent(chunk.getDocumentId(), k -> new HashSet<>()).add(chunk.getId());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void put(Chunk chunk) {
+        if (chunk.getEmbedding() == null || chunk.getEmbedding().length == 0) {
+            throw new IllegalArgumentException("Chunk has no embedding: " + chunk.getId());
+        }
+        removeChunk(chunk.getId());
+        String label = chunk.getId();
+        float[] vector = chunk.getEmbedding();
+        index.add(label, vector);
+        if (compactionLog != null) {
+            compactionLog.add(target -> target.add(label, vector));
+        }
+
+        // 벡터는 그래프에만 보관하고 청크 사본에서는 제외
+        Chunk stored = copyOf(chunk);
+        chunks.put(stored.getId(), stored);
+        if (stored.getDocumentId() != null) {
+            chunksByDocument.computeIfAbsent(stored.getDocumentId(), k -> new HashSet<>()).add(stored.getId());
+        }
+    }
+
+    private boolean removeChunk(String chunkId) {
+        Chunk existing = chunks.remove(chunkId);
+        removeFromIndex(chunkId);
+        if (existing == null) {
+            return false;
+        }
+        Set<String> siblings = chunksByDocument.get(existing.getDocumentId());
+        if (siblings != null) {
+            siblings.remove(chunkId);
+            if (siblings.isEmpty()) {
+                chunksByDocument.remove(existing.getDocumentId());
+            }
+        }
+        return true;
+    }
+
+    private void removeFromIndex(String chunkId) {
+        if (index.remove(chunkId) && compactionLog != null) {
+            compactionLog.add(target -> target.remove(chunkId));
+        }
+    }
+
+    private void clearAll() {
+        generation++;
+        index.clear();
+        chunks.clear();
+        chunksByDocument.clear();
+    }
+
+    private void markDirty() {
+        dirty.set(true);
+    }
+
+    private static Chunk copyOf(Chunk chunk) {
+        return Chunk.builder()
+                .id(chunk.getId())
+                .documentId(chunk.getDocumentId())
+                .content(chunk.getContent())
+                .chunkIndex(chunk.getChunkIndex())
+                .startPosition(chunk.getStartPosition())
+                .endPosition(chunk.getEndPosition())
+                .metadata(chunk.getMetadata() != null ? new HashMap<>(chunk.getMetadata()) : null)
+                .contentHash(chunk.getContentHash())
+                .type(chunk.getType())
+                .build();
+    }
+}
@@ -2,17 +2,86 @@ package com.dsai.rag.vectorstore.service;
 
 import com.dsai.rag.model.Chunk;
 import com.dsai.rag.model.QueryRequest;
+import com.dsai.rag.model.Vectors;
+import com.dsai.rag.vectorstore.search.Projection;
+import com.dsai.rag.vectorstore.search.ScoredChunk;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public interface VectorStoreService {
     void upsert(Chunk chunk);
     void upsertBatch(List<Chunk> chunks);
-    List<Chunk> search(String query, List<Float> queryEmbedding, int topK, Map<String, Object> filters);
-    List<Chunk> hybridSearch(String query, List<Float> queryEmbedding, int topK, Map<String, Object> filters);
+    
+    /**
+     * 색인 요청만 넘기고 바로 돌아옵니다. 반환된 future 는 모든 청크가 색인되면 완료되고, 하나라도 최종 실패하면 예외로 완료됩니다.
+     */
+    default CompletableFuture<Void> upsertBatchAsync(List<Chunk> chunks) {
+        upsertBatch(chunks);
+        return CompletableFuture.completedFuture(null);
+    }
+    
+    /**
+     * upsertBatchAsync 로 쌓아 둔 쓰기를 바로 보냅니다.
+     */
+    default void flush() {
+    }
+    
+    
+    /**
+     * 점수를 유지한 채 projection 에 지정된 필드만 담아 돌려줍니다.
+     * 점수는 질의와의 코사인 유사도이며, minScore(null 이면 제한 없음) 미만인 청크는 저장소에서 걸러집니다.
+     */
+    List<ScoredChunk> search(String query, float[] queryEmbedding, int topK, Double minScore,
+                             Map<String, Object> filters, Projection projection);
+    
+    /**
+     * 점수는 RRF 점수입니다. 순위 기반 점수라 minScore 는 벡터 검색 쪽 유사도에만 적용됩니다.
+     */
+    List<ScoredChunk> hybridSearch(String query, float[] queryEmbedding, int topK, Double minScore,
+                                   Map<String, Object> filters, Projection projection);
+    
+    /**
+     * 임베딩 없이 키워드(BM25)로만 검색합니다. 렉시컬 인덱스가 없는 저장소는 빈 결과를 돌려줍니다.
+     * 점수와 minScore 는 BM25 점수 기준입니다.
+     */
+    List<ScoredChunk> lexicalSearch(String query, int topK, Double minScore,
+                                    Map<String, Object> filters, Projection projection);
+    
+    default List<Chunk> search(String query, float[] queryEmbedding, int topK, Map<String, Object> filters) {
+        return ScoredChunk.chunks(search(query, queryEmbedding, topK, null, filters, Projection.FULL));
+    }
+    
+    default List<Chunk> hybridSearch(String query, float[] queryEmbedding, int topK, Map<String, Object> filters) {
+        return ScoredChunk.chunks(hybridSearch(query, queryEmbedding, topK, null, filters, Projection.FULL));
+    }
+    
+    default List<Chunk> lexicalSearch(String query, int topK, Map<String, Object> filters) {
+        return ScoredChunk.chunks(lexicalSearch(query, topK, null, filters, Projection.FULL));
+    }
+    
+    default List<Chunk> search(String query, List<Float> queryEmbedding, int topK, Map<String, Object> filters) {
+        return search(query, Vectors.toArray(queryEmbedding), topK, filters);
+    }
+    
+    default List<Chunk> hybridSearch(String query, List<Float> queryEmbedding, int topK, Map<String, Object> filters) {
+        return hybridSearch(query, Vectors.toArray(queryEmbedding), topK, filters);
+    }
+    
     void delete(String chunkId);
     void deleteByDocumentId(String documentId);
+    
+    default void deleteBatch(Collection<String> chunkIds) {
+        chunkIds.forEach(this::delete);
+    }
+    
+    /**
+     * 문서에 속한 청크들의 chunkId → contentHash. 증분 재인제스천의 비교 기준으로 사용합니다.
+     */
+    Map<String, String> getChunkHashes(String documentId);
+    
     boolean exists(String chunkId);
     long count();
     void createCollection(String collectionName);
@@ -0,0 +1,162 @@
+package com.dsai.rag.vectorstore.bulk;
+
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
+import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import co.elastic.clients.elasticsearch.core.bulk.OperationType;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BulkIndexerTest {
+
+    private static final String INDEX = "chunks";
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final ElasticsearchAsyncClient client = mock(ElasticsearchAsyncClient.class);
+    // 문서 ID 별로 시도마다 돌려줄 상태 코드 (마지막 값은 계속 반복)
+    private final Map<String, Deque<Integer>> statuses = new ConcurrentHashMap<>();
+
+    @Test
+    void buffersUntilMaxActionsThenSendsOneBulkRequest() {
+        when(client.bulk(any(BulkRequest.class))).thenAnswer(this::respond);
+
+        try (BulkIndexer indexer = indexer(3, 0, 3)) {
+            CompletableFuture<Void> first = indexer.add("a", Map.of("content", "a"), 10);
+            CompletableFuture<Void> second = indexer.add("b", Map.of("content", "b"), 10);
+            verify(client, never()).bulk(any(BulkRequest.class));
+
+            CompletableFuture<Void> third = indexer.add("c", Map.of("content", "c"), 10);
+
+            assertThat(List.of(first, second, third)).allSatisfy(future -> assertThat(future).succeedsWithin(TIMEOUT));
+            ArgumentCaptor<BulkRequest> request = ArgumentCaptor.forClass(BulkRequest.class);
+            verify(client, times(1)).bulk(request.capture());
+            assertThat(request.getValue().operations())
+                    .extracting(operation -> operation.index().id())
+                    .containsExactly("a", "b", "c");
+        }
+    }
+
+    @Test
+    void flushSendsPartialBatch() {
+        when(client.bulk(any(BulkRequest.class))).thenAnswer(this::respond);
+
+        try (BulkIndexer indexer = indexer(100, 0, 3)) {
+            CompletableFuture<Void> future = indexer.add("a", Map.of("content", "a"), 10);
+            verify(client, never()).bulk(any(BulkRequest.class));
+
+            indexer.flush();
+
+            assertThat(future).succeedsWithin(TIMEOUT);
+            verify(client, times(1)).bulk(any(BulkRequest.class));
+        }
+    }
+
+    @Test
+    void retriesOnlyRetryableItemsOfPartiallyFailedBatch() {
+        statuses.put("ok", new ArrayDeque<>(List.of(201)));
+        statuses.put("bad", new ArrayDeque<>(List.of(400)));
+        statuses.put("busy", new ArrayDeque<>(List.of(429, 201)));
+        when(client.bulk(any(BulkRequest.class))).thenAnswer(this::respond);
+
+        try (BulkIndexer indexer = indexer(3, 0, 3)) {
+            CompletableFuture<Void> ok = indexer.add("ok", Map.of(), 10);
+            CompletableFuture<Void> bad = indexer.add("bad", Map.of(), 10);
+            CompletableFuture<Void> busy = indexer.add("busy", Map.of(), 10);
+            // 재시도된 한 건은 maxActions 에 못 미쳐 버퍼에 남으므로 close 로 내보낸다
+            indexer.close();
+
+            assertThat(ok).succeedsWithin(TIMEOUT);
+            assertThat(busy).succeedsWithin(TIMEOUT);
+            assertThat(bad).failsWithin(TIMEOUT)
+                    .withThrowableOfType(ExecutionException.class)
+                    .withMessageContaining("Failed to index document bad")
+                    .withMessageContaining("400");
+            // 첫 요청 + busy 한 건만 다시 보낸 요청
+            verify(client, times(2)).bulk(any(BulkRequest.class));
+        }
+    }
+
+    @Test
+    void failsAfterRetriesAreExhausted() {
+        statuses.put("a", new ArrayDeque<>(List.of(503)));
+        when(client.bulk(any(BulkRequest.class))).thenAnswer(this::respond);
+
+        try (BulkIndexer indexer = indexer(1, 0, 2)) {
+            CompletableFuture<Void> future = indexer.add("a", Map.of(), 10);
+
+            assertThat(future).failsWithin(TIMEOUT)
+                    .withThrowableOfType(ExecutionException.class)
+                    .withMessageContaining("Failed to index document a");
+            verify(client, times(3)).bulk(any(BulkRequest.class));
+        }
+    }
+
+    @Test
+    void retriesWholeBatchAfterTransportFailure() {
+        when(client.bulk(any(BulkRequest.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IOException("Connection refused")))
+                .thenAnswer(this::respond);
+
+        try (BulkIndexer indexer = indexer(2, 0, 3)) {
+            CompletableFuture<Void> first = indexer.add("a", Map.of(), 10);
+            CompletableFuture<Void> second = indexer.add("b", Map.of(), 10);
+
+            assertThat(first).succeedsWithin(TIMEOUT);
+            assertThat(second).succeedsWithin(TIMEOUT);
+            verify(client, times(2)).bulk(any(BulkRequest.class));
+        }
+    }
+
+    private BulkIndexer indexer(int maxActions, long flushIntervalMillis, int maxRetries) {
+        return new BulkIndexer(client, INDEX, maxActions, Long.MAX_VALUE, flushIntervalMillis, 2, maxRetries, 1);
+    }
+
+    private CompletableFuture<BulkResponse> respond(InvocationOnMock invocation) {
+        BulkRequest request = invocation.getArgument(0);
+        List<BulkResponseItem> items = request.operations().stream()
+                .map(operation -> item(operation.index().id(), nextStatus(operation.index().id())))
+                .toList();
+        boolean errors = items.stream().anyMatch(item -> item.error() != null);
+        return CompletableFuture.completedFuture(BulkResponse.of(r -> r.took(1).errors(errors).items(items)));
+    }
+
+    private int nextStatus(String id) {
+        Deque<Integer> queue = statuses.get(id);
+        if (queue == null) {
+            return 201;
+        }
+        synchronized (queue) {
+            return queue.size() > 1 ? queue.poll() : queue.peek();
+        }
+    }
+
+    private static BulkResponseItem item(String id, int status) {
+        return BulkResponseItem.of(item -> {
+            item.operationType(OperationType.Index).index(INDEX).id(id).status(status);
+            if (status >= 300) {
+                item.error(error -> error.type("error").reason("status " + status));
+            }
+            return item;
+        });
+    }
+}
@@ -0,0 +1,81 @@
+package com.dsai.rag.vectorstore.health;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTest {
+
+    @Test
+    void opensAfterConsecutiveFailures() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 3, 60_000);
+
+        breaker.recordFailure();
+        breaker.recordFailure();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.allowRequest()).isTrue();
+
+        breaker.recordFailure();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.allowRequest()).isFalse();
+    }
+
+    @Test
+    void successResetsFailureCount() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 2, 60_000);
+
+        breaker.recordFailure();
+        breaker.recordSuccess();
+        breaker.recordFailure();
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void halfOpenLetsOnlyOneTrialThrough() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 1, 50);
+        breaker.trip();
+        sleep(60);
+
+        assertThat(breaker.allowRequest()).isTrue();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.allowRequest()).isFalse();
+    }
+
+    @Test
+    void trialSuccessClosesAndTrialFailureReopens() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 5, 50);
+        breaker.trip();
+        sleep(60);
+        assertThat(breaker.allowRequest()).isTrue();
+        breaker.recordFailure();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.allowRequest()).isFalse();
+
+        sleep(60);
+        assertThat(breaker.allowRequest()).isTrue();
+        breaker.recordSuccess();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.allowRequest()).isTrue();
+    }
+
+    @Test
+    void abandonedTrialIsReplacedAfterOpenDuration() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 1, 50);
+        breaker.trip();
+        sleep(60);
+        assertThat(breaker.allowRequest()).isTrue();
+
+        // 시험 요청이 결과를 기록하지 않고 사라진 경우
+        sleep(60);
+        assertThat(breaker.allowRequest()).isTrue();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
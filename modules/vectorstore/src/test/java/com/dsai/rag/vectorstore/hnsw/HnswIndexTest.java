@@ -0,0 +1,193 @@
+package com.dsai.rag.vectorstore.hnsw;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class HnswIndexTest {
+
+    private static final int DIMENSION = 16;
+    private static final int COUNT = 500;
+
+    private final Random random = new Random(42);
+
+    @Test
+    void findsStoredVectorFirst() {
+        HnswIndex index = new HnswIndex(16, 200);
+        List<float[]> vectors = addRandom(index, COUNT);
+
+        List<HnswIndex.SearchResult> results = index.search(vectors.get(123), 5, 100);
+
+        assertThat(results).hasSize(5);
+        assertThat(results.get(0).label()).isEqualTo("v123");
+        assertThat(results.get(0).score()).isCloseTo(1.0f, within(1e-5f));
+        assertThat(results).isSortedAccordingTo(Comparator.comparing(HnswIndex.SearchResult::score).reversed());
+    }
+
+    @Test
+    void recallMatchesBruteForce() {
+        HnswIndex index = new HnswIndex(16, 200);
+        List<float[]> vectors = addRandom(index, COUNT);
+
+        int hits = 0;
+        int queries = 50;
+        for (int q = 0; q < queries; q++) {
+            float[] query = randomVector();
+            Set<String> expected = bruteForce(vectors, query, 10);
+            hits += (int) index.search(query, 10, 100).stream()
+                    .filter(result -> expected.contains(result.label()))
+                    .count();
+        }
+
+        assertThat(hits / (double) (queries * 10)).isGreaterThanOrEqualTo(0.9);
+    }
+
+    @Test
+    void removedLabelsDisappearFromResults() {
+        HnswIndex index = new HnswIndex(16, 200);
+        List<float[]> vectors = addRandom(index, COUNT);
+
+        assertThat(index.remove("v7")).isTrue();
+        assertThat(index.remove("v7")).isFalse();
+
+        assertThat(index.contains("v7")).isFalse();
+        assertThat(index.size()).isEqualTo(COUNT - 1);
+        assertThat(index.deletedRatio()).isCloseTo(1.0 / COUNT, within(1e-9));
+        assertThat(index.search(vectors.get(7), 10, 100))
+                .extracting(HnswIndex.SearchResult::label)
+                .doesNotContain("v7");
+    }
+
+    @Test
+    void addingExistingLabelReplacesVector() {
+        HnswIndex index = new HnswIndex(8, 50);
+        float[] first = randomVector();
+        float[] second = randomVector();
+
+        index.add("doc", first);
+        index.add("doc", second);
+
+        assertThat(index.size()).isEqualTo(1);
+        List<HnswIndex.SearchResult> results = index.search(second, 5, 50);
+        assertThat(results).extracting(HnswIndex.SearchResult::label).containsExactly("doc");
+        assertThat(results.get(0).score()).isCloseTo(1.0f, within(1e-5f));
+    }
+
+    @Test
+    void filteredSearchReturnsOnlyAcceptedLabels() {
+        HnswIndex index = new HnswIndex(16, 200);
+        addRandom(index, COUNT);
+
+        List<HnswIndex.SearchResult> results = index.search(randomVector(), 10, 50,
+                label -> Integer.parseInt(label.substring(1)) % 10 == 0);
+
+        assertThat(results).hasSize(10)
+                .allSatisfy(result -> assertThat(Integer.parseInt(result.label().substring(1)) % 10).isZero());
+    }
+
+    @Test
+    void rejectsDimensionMismatch() {
+        HnswIndex index = new HnswIndex(8, 50);
+        index.add("a", randomVector());
+
+        assertThatThrownBy(() -> index.add("b", new float[DIMENSION + 1])).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> index.search(new float[DIMENSION - 1], 5, 50)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void emptyIndexReturnsNoResults() {
+        assertThat(new HnswIndex(8, 50).search(randomVector(), 5, 50)).isEmpty();
+    }
+
+    @Test
+    void liveVectorsRebuildIndexWithoutTombstones() {
+        HnswIndex index = new HnswIndex(16, 200);
+        addRandom(index, 100);
+        for (int i = 0; i < 100; i += 2) {
+            index.remove("v" + i);
+        }
+
+        HnswIndex rebuilt = new HnswIndex(16, 200);
+        Map<String, float[]> live = index.liveVectors();
+        live.forEach(rebuilt::add);
+
+        assertThat(live).hasSize(50).doesNotContainKey("v0").containsKey("v1");
+        assertThat(rebuilt.size()).isEqualTo(50);
+        assertThat(rebuilt.deletedRatio()).isZero();
+        assertThat(rebuilt.labels()).containsExactlyInAnyOrderElementsOf(index.labels());
+    }
+
+    @Test
+    void snapshotRoundTripKeepsSearchResults() throws IOException {
+        HnswIndex index = new HnswIndex(16, 200);
+        addRandom(index, COUNT);
+        index.remove("v3");
+        float[] query = randomVector();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        index.writeTo(new DataOutputStream(bytes));
+        HnswIndex restored = new HnswIndex(16, 200);
+        restored.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertThat(restored.size()).isEqualTo(index.size());
+        assertThat(restored.contains("v3")).isFalse();
+        assertThat(restored.search(query, 10, 100)).isEqualTo(index.search(query, 10, 100));
+    }
+
+    private List<float[]> addRandom(HnswIndex index, int count) {
+        List<float[]> vectors = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            float[] vector = randomVector();
+            vectors.add(vector);
+            index.add("v" + i, vector);
+        }
+        return vectors;
+    }
+
+    private float[] randomVector() {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+
+    private static Set<String> bruteForce(List<float[]> vectors, float[] query, int topK) {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < vectors.size(); i++) {
+            ids.add(i);
+        }
+        return ids.stream()
+                .sorted(Comparator.comparingDouble((Integer id) -> -cosine(vectors.get(id), query)))
+                .limit(topK)
+                .map(id -> "v" + id)
+                .collect(Collectors.toSet());
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        double dot = 0;
+        double normA = 0;
+        double normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return dot / Math.sqrt(normA * normB);
+    }
+}
@@ -0,0 +1,56 @@
+package com.dsai.rag.vectorstore.search;
+
+import com.dsai.rag.model.Chunk;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class RankFusionTest {
+
+    private static final int K = 60;
+
+    @Test
+    void scoresByReciprocalRankAcrossRankings() {
+        List<ScoredChunk> lexical = List.of(scored("a", 12.0), scored("b", 9.0), scored("c", 3.0));
+        List<ScoredChunk> vector = List.of(scored("b", 0.91), scored("d", 0.88), scored("a", 0.75));
+
+        List<ScoredChunk> fused = RankFusion.reciprocalRank(K, 10, lexical, vector);
+
+        assertThat(fused).extracting(result -> result.chunk().getId()).containsExactly("b", "a", "d", "c");
+        assertThat(fused.get(0).score()).isCloseTo(1.0 / (K + 2) + 1.0 / (K + 1), within(1e-12));
+        assertThat(fused.get(1).score()).isCloseTo(1.0 / (K + 1) + 1.0 / (K + 3), within(1e-12));
+        assertThat(fused.get(2).score()).isCloseTo(1.0 / (K + 2), within(1e-12));
+        assertThat(fused.get(3).score()).isCloseTo(1.0 / (K + 3), within(1e-12));
+    }
+
+    @Test
+    void ignoresOriginalScoreScale() {
+        List<ScoredChunk> lexical = List.of(scored("a", 1000.0));
+        List<ScoredChunk> vector = List.of(scored("b", 0.99));
+
+        List<ScoredChunk> fused = RankFusion.reciprocalRank(K, 10, lexical, vector);
+
+        assertThat(fused).extracting(ScoredChunk::score).containsOnly(1.0 / (K + 1));
+    }
+
+    @Test
+    void truncatesToTopK() {
+        List<ScoredChunk> ranking = List.of(scored("a", 3), scored("b", 2), scored("c", 1));
+
+        assertThat(RankFusion.reciprocalRank(K, 2, ranking))
+                .extracting(result -> result.chunk().getId())
+                .containsExactly("a", "b");
+    }
+
+    @Test
+    void returnsEmptyForEmptyRankings() {
+        assertThat(RankFusion.reciprocalRank(K, 5, List.of(), List.of())).isEmpty();
+    }
+
+    private static ScoredChunk scored(String id, double score) {
+        return new ScoredChunk(Chunk.builder().id(id).content("content " + id).build(), score);
+    }
+}
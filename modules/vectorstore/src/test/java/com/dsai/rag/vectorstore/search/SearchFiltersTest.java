@@ -0,0 +1,85 @@
+package com.dsai.rag.vectorstore.search;
+
+import com.dsai.rag.model.Chunk;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchFiltersTest {
+
+    private final Chunk chunk = Chunk.builder()
+            .id("doc-1_3")
+            .documentId("doc-1")
+            .chunkIndex(3)
+            .type(Chunk.ChunkType.CODE)
+            .metadata(Map.of("documentType", "markdown", "source", "guide.md", "page", 7))
+            .build();
+
+    @Test
+    void mapsFilterKeysToFieldPaths() {
+        assertThat(SearchFilters.fieldPath("documentId")).isEqualTo("documentId");
+        assertThat(SearchFilters.fieldPath("type")).isEqualTo("type");
+        assertThat(SearchFilters.fieldPath("documentType")).isEqualTo("metadata.documentType");
+        assertThat(SearchFilters.fieldPath("metadata.source")).isEqualTo("metadata.source");
+    }
+
+    @Test
+    void detectsRangeFilters() {
+        assertThat(SearchFilters.isRange(Map.of("gte", 1, "lt", 5))).isTrue();
+        assertThat(SearchFilters.isRange(Map.of("gte", 1, "other", 5))).isFalse();
+        assertThat(SearchFilters.isRange(Map.of())).isFalse();
+        assertThat(SearchFilters.isRange("gte")).isFalse();
+    }
+
+    @Test
+    void emptyFiltersMatchEverything() {
+        assertThat(SearchFilters.isEmpty(null)).isTrue();
+        assertThat(SearchFilters.matches(chunk, null)).isTrue();
+        assertThat(SearchFilters.matches(chunk, Map.of())).isTrue();
+    }
+
+    @Test
+    void matchesChunkAndMetadataFields() {
+        assertThat(SearchFilters.matches(chunk, Map.of("documentId", "doc-1"))).isTrue();
+        assertThat(SearchFilters.matches(chunk, Map.of("type", "CODE"))).isTrue();
+        assertThat(SearchFilters.matches(chunk, Map.of("documentType", "markdown"))).isTrue();
+        assertThat(SearchFilters.matches(chunk, Map.of("metadata.source", "guide.md"))).isTrue();
+        assertThat(SearchFilters.matches(chunk, Map.of("documentType", "pdf"))).isFalse();
+        assertThat(SearchFilters.matches(chunk, Map.of("missing", "value"))).isFalse();
+    }
+
+    @Test
+    void combinesKeysWithAnd() {
+        assertThat(SearchFilters.matches(chunk, Map.of("documentId", "doc-1", "documentType", "markdown"))).isTrue();
+        assertThat(SearchFilters.matches(chunk, Map.of("documentId", "doc-1", "documentType", "pdf"))).isFalse();
+    }
+
+    @Test
+    void matchesAnyValueOfCollection() {
+        assertThat(SearchFilters.matches(chunk, Map.of("documentType", List.of("pdf", "markdown")))).isTrue();
+        assertThat(SearchFilters.matches(chunk, Map.of("documentType", List.of("pdf", "html")))).isFalse();
+    }
+
+    @Test
+    void comparesRangesNumerically() {
+        assertThat(SearchFilters.matches(chunk, Map.of("chunkIndex", Map.of("gte", 3, "lt", 4)))).isTrue();
+        assertThat(SearchFilters.matches(chunk, Map.of("chunkIndex", Map.of("gt", 3)))).isFalse();
+        assertThat(SearchFilters.matches(chunk, Map.of("page", Map.of("lte", 10)))).isTrue();
+        // 숫자 필드는 문자열로 들어온 값도 숫자로 비교한다 ("10" > 7)
+        assertThat(SearchFilters.matches(chunk, Map.of("page", Map.of("lt", "10")))).isTrue();
+        assertThat(SearchFilters.matches(chunk, Map.of("chunkIndex", "3"))).isTrue();
+    }
+
+    @Test
+    void skipsNullFilterValues() {
+        Map<String, Object> filters = new HashMap<>();
+        filters.put("documentType", null);
+        filters.put("documentId", "doc-1");
+
+        assertThat(SearchFilters.matches(chunk, filters)).isTrue();
+    }
+}
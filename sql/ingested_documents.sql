@@ -0,0 +1,18 @@
+-- 색인된 문서 레지스트리 (중복 업로드 검사용)
+USE js;
+
+CREATE TABLE IF NOT EXISTS ingested_documents (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    document_id VARCHAR(64) NOT NULL UNIQUE,
+    file_hash VARCHAR(64) NOT NULL,
+    content_hash VARCHAR(64),
+    document_key VARCHAR(1024),
+    filename VARCHAR(255),
+    source VARCHAR(1024),
+    document_type VARCHAR(20),
+    size BIGINT,
+    chunk_count INT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    UNIQUE INDEX idx_ingested_file_hash (file_hash)
+);